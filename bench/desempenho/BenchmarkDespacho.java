@@ -0,0 +1,105 @@
+package desempenho;
+
+import Tabuleiro.Tabuleiro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pecas.Bispo;
+import pecas.Cavalo;
+import pecas.Peao;
+import pecas.Peca;
+import pecas.Rainha;
+import pecas.Rei;
+import pecas.Torre;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Só o despacho da geração de lances das classes de {@code Peca}: as mesmas peças, na ordem por tipo em que o
+ * {@link Tabuleiro} as percorre, chamando {@code setCasasLegais} pela chamada virtual de {@code Peca} ou pelo
+ * código do tipo com cast, que dá a cada ramo uma classe só. O Tabuleiro usa a chamada virtual: medido numa
+ * máquina de um núcleo, o despacho pelo código não ficou à frente além do ruído entre execuções.
+ * <p>
+ * Cada benchmark roda no seu fork, então o perfil de tipos de um não contamina o outro.
+ *
+ * <pre>
+ * mvn -Pjmh package
+ * java -jar target/benchmarks.jar BenchmarkDespacho
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkDespacho {
+
+    @Param({
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+    })
+    public String fen;
+
+    private Peca[] pecas;
+
+    @Setup
+    public void preparar() {
+        Tabuleiro.criarCasas();
+        Tabuleiro.limpar();
+        Tabuleiro.lerFEN(fen);
+        Tabuleiro.atualizarEstado();
+        List<Peca> lista = new ArrayList<>();
+        for (int casa = 0; casa < 64; casa++) {
+            Peca peca = Tabuleiro.getCasa(casa).getPeca();
+            if (peca != null) {
+                lista.add(peca);
+            }
+        }
+        lista.sort(Comparator.comparingInt(Peca::getCodigo));
+        pecas = lista.toArray(new Peca[0]);
+    }
+
+    @Benchmark
+    public int virtual() {
+        limpar();
+        for (Peca peca : pecas) {
+            peca.setCasasLegais();
+        }
+        return Tabuleiro.casasLegaisPecasBrancas.size();
+    }
+
+    @Benchmark
+    public int porCodigo() {
+        limpar();
+        for (Peca peca : pecas) {
+            switch (peca.getCodigo()) {
+                case Peca.PEAO -> ((Peao) peca).setCasasLegais();
+                case Peca.CAVALO -> ((Cavalo) peca).setCasasLegais();
+                case Peca.BISPO -> ((Bispo) peca).setCasasLegais();
+                case Peca.TORRE -> ((Torre) peca).setCasasLegais();
+                case Peca.RAINHA -> ((Rainha) peca).setCasasLegais();
+                default -> ((Rei) peca).setCasasLegais();
+            }
+        }
+        return Tabuleiro.casasLegaisPecasBrancas.size();
+    }
+
+    // setCasasLegais acumula nas listas globais, nos ataques de cada casa e nos atacantes dos reis.
+    private static void limpar() {
+        Tabuleiro.clearCasasLegais();
+        Tabuleiro.clearPecasAtacantes();
+        Tabuleiro.clearIsAtacked();
+    }
+}
@@ -0,0 +1,72 @@
+package desempenho;
+
+import Tabuleiro.Posicao;
+import Tabuleiro.Tabuleiro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geração de lances nas duas representações, na mesma posição: a atualização completa do {@link Tabuleiro} (as
+ * classes de {@code Peca}) e a geração de lances legais da {@link Posicao}.
+ * <p>
+ * O Tabuleiro é estático, então cada fork mede uma posição por vez e numa thread só.
+ *
+ * <pre>
+ * mvn -Pjmh package
+ * java -jar target/benchmarks.jar BenchmarkGeracao
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkGeracao {
+
+    @Param({
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    })
+    public String fen;
+
+    private Posicao posicao;
+    private final int[] lances = new int[Posicao.MAX_LANCES];
+
+    @Setup
+    public void preparar() {
+        Tabuleiro.criarCasas();
+        Tabuleiro.limpar();
+        Tabuleiro.lerFEN(fen);
+        Tabuleiro.atualizarEstado();
+        posicao = new Posicao(fen);
+    }
+
+    @Benchmark
+    public int tabuleiroAtualizarEstado() {
+        Tabuleiro.atualizarEstado();
+        return Tabuleiro.casasLegaisPecasBrancas.size() + Tabuleiro.casasLegaisPecasPretas.size();
+    }
+
+    @Benchmark
+    public int posicaoGerarLegais() {
+        return posicao.gerarLegais(lances);
+    }
+
+    @Benchmark
+    public int posicaoGerarLances() {
+        return posicao.gerarLances(lances);
+    }
+}
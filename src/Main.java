@@ -2,7 +2,10 @@ import Tabuleiro.Casa;
 
 import Tabuleiro.Tabuleiro;
 import pecas.Peca;
+import persistencia.Diario;
+import persistencia.RegistroPartida;
 
+import java.io.IOException;
 import java.util.Scanner;
 
 import static Tabuleiro.Casa.BY_BLACK;
@@ -10,12 +13,20 @@ import static Tabuleiro.Casa.BY_WHITE;
 import static Tabuleiro.Tabuleiro.*;
 
 public class Main {
+    private static Diario diario; // null = sem diário (não foi possível abrir).
+
     public static void main(String[] args) {
         Scanner sc = new Scanner(System.in);
 
         criarCasas();
         preencherCasasToString();
-        lerFEN(FEN_POS_INICIAL); // en passant tb mostrar
+        // Retoma a partida local que não terminou, ou começa da posição inicial; cada lance vai para o diário.
+        try {
+            diario = Diario.abrirPartidaLocal(Diario.diretorioLocal());
+        } catch (IOException e) {
+            System.out.println("Sem diário de partidas: " + e.getMessage());
+            lerFEN(FEN_POS_INICIAL); // en passant tb mostrar
+        }
         // lerFEN("r3k1nr/1p1ppppp/8/8/8/2Q5/PPPPPPPP/RN2K2R"); // exemplo roque
         // lerFEN("r7/6k1/5q2/8/1p4N1/1P6/1KP5/7r"); //Caso de xeque
         // lerFEN("4k3/3r4/6n1/7B/Q7/4q3/8/1KR4R"); // peças cravadas
@@ -34,22 +45,29 @@ public class Main {
             // Check for Game Over conditions at the start of the turn
             // Xequemate
             if (getReiBranco().isCheckmated()) {
-                System.out.println("As pretas venceram por chequemate!");
-                System.exit(0);
+                encerrar("As pretas venceram por chequemate!", RegistroPartida.VITORIA_PRETAS);
             }
             if (getReiPreto().isCheckmated()) {
-                System.out.println("As brancas venceram por chequemate!");
-                System.exit(0);
+                encerrar("As brancas venceram por chequemate!", RegistroPartida.VITORIA_BRANCAS);
             }
 
             // Afogamento
             if (getReiBranco().isStalemate()) {
-                System.out.println("Empate por afogamento.");
-                System.exit(0);
+                encerrar("Empate por afogamento.", RegistroPartida.EMPATE);
             }
             if (getReiPreto().isStalemate()) {
-                System.out.println("Empate por afogamento.");
-                System.exit(0);
+                encerrar("Empate por afogamento.", RegistroPartida.EMPATE);
+            }
+
+            // Empates por regra
+            if (isEmpatePorRepeticao()) {
+                encerrar("Empate por repetição tripla.", RegistroPartida.EMPATE);
+            }
+            if (isEmpatePor50Lances()) {
+                encerrar("Empate pela regra dos 50 lances.", RegistroPartida.EMPATE);
+            }
+            if (isMaterialInsuficiente()) {
+                encerrar("Empate por material insuficiente.", RegistroPartida.EMPATE);
             }
 
             System.out.println("\nDigite a casa de origem: ");
@@ -66,11 +84,10 @@ public class Main {
                         imprimirCorAtual();
 
                         if (Tabuleiro.getJogadas() % 2 == 0) {
-                            System.out.println("As pretas venceram por desistência!");
+                            encerrar("As pretas venceram por desistência!", RegistroPartida.VITORIA_PRETAS);
                         } else {
-                            System.out.println("As brancas venceram por desistência!");
+                            encerrar("As brancas venceram por desistência!", RegistroPartida.VITORIA_BRANCAS);
                         }
-                        System.exit(0);
                     }
                     case "ajuda" -> {
                         System.out.println(
@@ -82,6 +99,7 @@ public class Main {
                         System.out.println("V-   Digite 'brancas?' para ver os movimentos legais das peças brancas.");
                         System.out.println("VI-  Digite 'pretas?' para ver os movimentos legais das peças brancas.");
                         System.out.println("VII- Digite 'desistir' para abandonar a partida.");
+                        System.out.println("VIII- Digite 'fen' para ver a FEN da posição atual.");
                         System.out.println(
                                 "---------------------------------------------------------------------------------------------------------------------------");
                         System.out.println(
@@ -115,6 +133,11 @@ public class Main {
 
                         continue inicio;
                     }
+                    case "fen" -> {
+                        System.out.println(Tabuleiro.toFEN());
+
+                        continue inicio;
+                    }
                     case "brancas?" -> {
                         System.out.print("Movimentos legais peças brancas: [");
                         for (Casa casa : casasLegaisPecasBrancas) {
@@ -220,16 +243,22 @@ public class Main {
         }
     }
 
+    // Fim de partida: grava o resultado, para que ela não seja retomada na próxima execução, e sai.
+    private static void encerrar(String mensagem, int resultado) {
+        System.out.println(mensagem);
+        if (diario != null) {
+            diario.registrarFim(Diario.PARTIDA_LOCAL, resultado);
+            try {
+                diario.close();
+            } catch (IOException e) {
+                System.out.println("Erro ao fechar o diário: " + e.getMessage());
+            }
+        }
+        System.exit(0);
+    }
+
     private static void refreshGameState() {
-        clearCasasLegais(); // Esvazia as casas legais antes de analisar novamente.
-        clearCasasDeBloqueio(); // Esvazia as casas de bloqueio antes de analisar novamente.
-        clearPecasAtacantes(); // Zera a contagem das peças que estão atacando o rei.
-        clearIsAtacked();
-
-        refreshCasasLegais(); // Analisa as casas legais de todas as peças do tabuleiro.
-        refreshIsInCheck(); // Verifica se os reis estão em cheque.
-        refreshFiltroCasasLegais(); // Filtra a interseção entre casas legais e as casas de bloqueio.
-        refreshCravaPecas();
-        uniteCasasLegais();
+        // Recalcula casas legais, xeques, bloqueios e cravadas; só as peças afetadas pelo último lance são refeitas.
+        atualizarEstadoIncremental();
     }
 }
@@ -0,0 +1,77 @@
+package Tabuleiro;
+
+/**
+ * Tabelas de ataque das peças que saltam (cavalo e rei) e dos peões, e as casas entre duas casas alinhadas,
+ * montadas uma vez quando a classe carrega.
+ * <p>
+ * Cada entrada é um bitboard: na tabela do cavalo, o bit {@code fileira * 8 + coluna} (a casa de {@link Lance})
+ * de {@code cavalo(c)} está ligado se um cavalo em {@code c} alcança aquela casa. Como os saltos são simétricos,
+ * a mesma entrada diz de quais casas um cavalo atacaria {@code c}.
+ */
+public final class Ataques {
+    private static final long[] CAVALO = new long[64];
+    private static final long[] REI = new long[64];
+    private static final long[][] PEAO = new long[2][64]; // Por cor: as duas casas que o peão captura.
+    private static final long[] ENTRE = new long[64 * 64];
+
+    static {
+        int[] cavaloDc = {1, 2, 2, 1, -1, -2, -2, -1};
+        int[] cavaloDf = {2, 1, -1, -2, -2, -1, 1, 2};
+        int[] reiDc = {1, 1, 0, -1, -1, -1, 0, 1};
+        int[] reiDf = {0, 1, 1, 1, 0, -1, -1, -1};
+        for (int casa = 0; casa < 64; casa++) {
+            CAVALO[casa] = saltos(casa, cavaloDc, cavaloDf);
+            REI[casa] = saltos(casa, reiDc, reiDf);
+            PEAO[Tabuleiro.BRANCO][casa] = saltos(casa, new int[]{-1, 1}, new int[]{1, 1});
+            PEAO[Tabuleiro.PRETO][casa] = saltos(casa, new int[]{-1, 1}, new int[]{-1, -1});
+
+            // Anda em cada uma das oito direções guardando as casas já passadas.
+            for (int i = 0; i < reiDc.length; i++) {
+                long caminho = 0;
+                for (int c = Lance.coluna(casa) + reiDc[i], f = Lance.fileira(casa) + reiDf[i];
+                     c >= 0 && c < 8 && f >= 0 && f < 8; c += reiDc[i], f += reiDf[i]) {
+                    ENTRE[casa * 64 + Lance.casa(c, f)] = caminho;
+                    caminho |= 1L << Lance.casa(c, f);
+                }
+            }
+        }
+    }
+
+    private Ataques() {
+    }
+
+    public static long cavalo(int casa) {
+        return CAVALO[casa];
+    }
+
+    public static long rei(int casa) {
+        return REI[casa];
+    }
+
+    /**
+     * Casas que um peão da cor em {@code casa} captura. Vista ao contrário, {@code peao(cor, c)} são as casas de
+     * onde um peão da outra cor atacaria {@code c}.
+     */
+    public static long peao(int cor, int casa) {
+        return PEAO[cor][casa];
+    }
+
+    /**
+     * Casas estritamente entre {@code a} e {@code b} se estão na mesma linha, coluna ou diagonal; senão, nenhuma.
+     */
+    public static long entre(int a, int b) {
+        return ENTRE[a * 64 + b];
+    }
+
+    private static long saltos(int casa, int[] dc, int[] df) {
+        long alvos = 0;
+        for (int i = 0; i < dc.length; i++) {
+            int c = Lance.coluna(casa) + dc[i];
+            int f = Lance.fileira(casa) + df[i];
+            if (c >= 0 && c < 8 && f >= 0 && f < 8) {
+                alvos |= 1L << Lance.casa(c, f);
+            }
+        }
+        return alvos;
+    }
+}
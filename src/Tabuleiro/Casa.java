@@ -9,6 +9,7 @@ public class Casa {
     private int cor; //0 - branco e 1 - preto
     private Peca peca; // peça associada a cada casa
     private ArrayList<Integer> isAtacked; // arraylist que guarda quem tá atacando a casa
+    private final int indice; // fileira * 8 + coluna, como em Lance.
     
     public static final int BY_WHITE = 1;
     public static final int BY_BLACK = 2;
@@ -22,6 +23,11 @@ public class Casa {
         this.cor = cor;
         this.peca = null;           //A casa é criada vazia, e apenas troca de estado dentro do escopo do objeto Peça.
         this.isAtacked = new ArrayList<>(2);
+        this.indice = Lance.casa(coluna, fileira);
+    }
+
+    public int getIndice() {
+        return indice;
     }
 
     public int[] getPos() {
@@ -42,9 +48,11 @@ public class Casa {
 
     public void setPeca(Peca peca) {
         this.peca = peca;
+        Tabuleiro.marcarAlterada(this);
     }
     public void esvaziar(){
         this.peca = null;
+        Tabuleiro.marcarAlterada(this);
     }
 
     public Peca getPeca() {
@@ -92,5 +100,6 @@ public class Casa {
 
     public void setAtacked(int atacked) {
         isAtacked.add(atacked);
+        Tabuleiro.registrarAtaque(this);
     }
 }
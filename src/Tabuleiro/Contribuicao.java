@@ -0,0 +1,31 @@
+package Tabuleiro;
+
+import java.util.ArrayList;
+
+/**
+ * O que {@code Peca.setCasasLegais()} deixou no tabuleiro na última vez em que rodou para uma peça: as casas
+ * legais brutas (antes de filtro e cravadas), as casas que marcou como atacadas, as casas de bloqueio e os xeques
+ * que deu. Com isso a {@link Tabuleiro#atualizarEstadoIncremental() atualização incremental} refaz a contribuição
+ * de uma peça que não foi afetada pelo lance sem percorrer os raios dela de novo.
+ */
+final class Contribuicao {
+    final ArrayList<Casa> brutas = new ArrayList<>(16);
+    final ArrayList<Casa> atacadas = new ArrayList<>(16); // Com repetição, na ordem de Casa.setAtacked.
+    final ArrayList<Casa> bloqueioBrancas = new ArrayList<>(4);
+    final ArrayList<Casa> bloqueioPretas = new ArrayList<>(4);
+    int xequesBrancas; // Quantas vezes incrementou os atacantes do rei branco.
+    int xequesPretas;
+    int codigoAtaque; // Casa.BY_WHITE ou Casa.BY_BLACK.
+    long lidas; // Casas (bit fileira * 8 + coluna) cujo conteúdo o cálculo consultou.
+    boolean emUso;
+
+    void limpar() {
+        brutas.clear();
+        atacadas.clear();
+        bloqueioBrancas.clear();
+        bloqueioPretas.clear();
+        xequesBrancas = 0;
+        xequesPretas = 0;
+        lidas = 0;
+    }
+}
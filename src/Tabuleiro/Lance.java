@@ -0,0 +1,67 @@
+package Tabuleiro;
+
+import pecas.Peca;
+
+/**
+ * Codificação primitiva de lances em um int.
+ * <p>
+ * Os 16 bits baixos guardam casa de origem (bits 0-5), casa de destino (bits 6-11) e o tipo da peça de promoção
+ * (bits 12-15, 0 quando não há promoção). As casas são indexadas por {@code fileira * 8 + coluna}, ou seja,
+ * a1 = 0 e h8 = 63.
+ */
+public final class Lance {
+    public static final int NENHUM = 0;
+
+    private Lance() {
+    }
+
+    public static int casa(int coluna, int fileira) {
+        return fileira * 8 + coluna;
+    }
+
+    public static int coluna(int casa) {
+        return casa & 7;
+    }
+
+    public static int fileira(int casa) {
+        return casa >>> 3;
+    }
+
+    public static int criar(int origem, int destino) {
+        return origem | (destino << 6);
+    }
+
+    public static int criar(int origem, int destino, int promocao) {
+        return origem | (destino << 6) | (promocao << 12);
+    }
+
+    public static int origem(int lance) {
+        return lance & 0x3F;
+    }
+
+    public static int destino(int lance) {
+        return (lance >>> 6) & 0x3F;
+    }
+
+    public static int promocao(int lance) {
+        return (lance >>> 12) & 0xF;
+    }
+
+    public static String casaString(int casa) {
+        return "" + (char) ('a' + coluna(casa)) + (char) ('1' + fileira(casa));
+    }
+
+    /**
+     * Notação de coordenadas (UCI), ex: "e2e4" ou "e7e8q".
+     */
+    public static String paraString(int lance) {
+        String s = casaString(origem(lance)) + casaString(destino(lance));
+        return switch (promocao(lance)) {
+            case Peca.CAVALO -> s + 'n';
+            case Peca.BISPO -> s + 'b';
+            case Peca.TORRE -> s + 'r';
+            case Peca.RAINHA -> s + 'q';
+            default -> s;
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package Tabuleiro;
+
+import pecas.Peca;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static Tabuleiro.Tabuleiro.BRANCO;
+import static Tabuleiro.Tabuleiro.PRETO;
+
+/**
+ * As peças do {@link Tabuleiro}, numa lista por cor e tipo. Cada casa ocupada guarda a posição da sua peça dentro
+ * da lista, então adicionar, remover e mover custam O(1): a peça removida dá lugar à última da lista.
+ * <p>
+ * A iteração vai por cor (brancas primeiro) e por tipo, de {@link Peca#PEAO} a {@link Peca#REI}; dentro de um tipo
+ * a ordem muda com as remoções. Para percorrer só um tipo, {@link #quantidade(int, int)} e {@link #get}.
+ */
+public final class ListaPecas implements Iterable<Peca> {
+    private static final int CAPACIDADE = 10; // Duas peças de um tipo mais oito promoções. Cresce se uma FEN pedir mais.
+
+    private final Peca[][][] pecas = new Peca[2][Peca.REI + 1][CAPACIDADE];
+    private final int[][] quantidades = new int[2][Peca.REI + 1];
+    private final int[] indices = new int[64]; // Casa -> posição da peça que está nela, na lista do seu tipo.
+    private int total;
+
+    /**
+     * Acrescenta a peça, na casa em que ela está.
+     */
+    public void adicionar(Peca peca) {
+        Peca[] lista = pecas[peca.getCor()][peca.getCodigo()];
+        int quantidade = quantidades[peca.getCor()][peca.getCodigo()]++;
+        if (quantidade == lista.length) {
+            lista = pecas[peca.getCor()][peca.getCodigo()] = Arrays.copyOf(lista, 2 * quantidade);
+        }
+        lista[quantidade] = peca;
+        indices[casaDe(peca)] = quantidade;
+        total++;
+    }
+
+    /**
+     * Tira a peça, que precisa estar na lista e na casa em que foi adicionada ou movida por último. Aceita null,
+     * para as capturas em casa vazia.
+     */
+    public void remover(Peca peca) {
+        if (peca == null) {
+            return;
+        }
+        Peca[] lista = pecas[peca.getCor()][peca.getCodigo()];
+        int ultima = --quantidades[peca.getCor()][peca.getCodigo()];
+        int indice = indices[casaDe(peca)];
+        if (indice != ultima) {
+            lista[indice] = lista[ultima];
+            indices[casaDe(lista[indice])] = indice;
+        }
+        lista[ultima] = null;
+        total--;
+    }
+
+    /**
+     * Registra que a peça em {@code origem} foi para {@code destino}. Uma peça capturada em {@code destino} tem que
+     * ser removida antes.
+     */
+    public void mover(int origem, int destino) {
+        indices[destino] = indices[origem];
+    }
+
+    public void limpar() {
+        for (int cor = BRANCO; cor <= PRETO; cor++) {
+            for (int tipo = Peca.PEAO; tipo <= Peca.REI; tipo++) {
+                Arrays.fill(pecas[cor][tipo], 0, quantidades[cor][tipo], null);
+                quantidades[cor][tipo] = 0;
+            }
+        }
+        total = 0;
+    }
+
+    public int quantidade(int cor, int tipo) {
+        return quantidades[cor][tipo];
+    }
+
+    public Peca get(int cor, int tipo, int indice) {
+        return pecas[cor][tipo][indice];
+    }
+
+    /**
+     * O rei da cor, ou null se não há.
+     */
+    public Peca getRei(int cor) {
+        return (quantidades[cor][Peca.REI] > 0) ? pecas[cor][Peca.REI][0] : null;
+    }
+
+    public int tamanho() {
+        return total;
+    }
+
+    @Override
+    public Iterator<Peca> iterator() {
+        return new Iterator<>() {
+            private int cor = BRANCO;
+            private int tipo = Peca.PEAO;
+            private int indice;
+
+            @Override
+            public boolean hasNext() {
+                while (cor <= PRETO) {
+                    if (indice < quantidades[cor][tipo]) {
+                        return true;
+                    }
+                    indice = 0;
+                    if (++tipo > Peca.REI) {
+                        tipo = Peca.PEAO;
+                        cor++;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public Peca next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return pecas[cor][tipo][indice++];
+            }
+        };
+    }
+
+    private static int casaDe(Peca peca) {
+        return Lance.casa(peca.getColuna(), peca.getFileira());
+    }
+}
@@ -0,0 +1,88 @@
+package Tabuleiro;
+
+import static Tabuleiro.Tabuleiro.BRANCO;
+import static Tabuleiro.Tabuleiro.PRETO;
+import static pecas.Peca.*;
+
+/**
+ * Chave de material: a contagem de peças de cada tipo e cor empacotada num long.
+ * <p>
+ * Cada cor ocupa 24 bits, com 4 bits por contador: peões, cavalos, bispos de casa clara, bispos de casa escura,
+ * torres e damas (reis não entram). Bispos são separados pela cor da casa para reconhecer bispos do mesmo
+ * lado do tabuleiro. A chave é atualizada somando ou subtraindo {@link #unidade}, então capturas e promoções a
+ * mantêm em O(1), e ela serve tanto para detectar empates por material quanto para escolher avaliadores de finais.
+ */
+public final class Material {
+    public static final int PEOES = 0;
+    public static final int CAVALOS = 1;
+    public static final int BISPOS_CLAROS = 2;
+    public static final int BISPOS_ESCUROS = 3;
+    public static final int TORRES = 4;
+    public static final int RAINHAS = 5;
+
+    private static final int BITS_POR_COR = 24;
+
+    // Peões, torres ou damas de qualquer cor: sempre há material para mate.
+    private static final long PESADAS = mascara(PEOES) | mascara(TORRES) | mascara(RAINHAS);
+
+    private Material() {
+    }
+
+    private static long mascara(int contador) {
+        long umaCor = 0xFL << (contador * 4);
+        return umaCor | (umaCor << BITS_POR_COR);
+    }
+
+    public static int contador(int tipo, int casa) {
+        return switch (tipo) {
+            case PEAO -> PEOES;
+            case CAVALO -> CAVALOS;
+            case BISPO -> ((Lance.coluna(casa) + Lance.fileira(casa)) & 1) != 0 ? BISPOS_CLAROS : BISPOS_ESCUROS;
+            case TORRE -> TORRES;
+            case RAINHA -> RAINHAS;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Valor a somar (ao entrar) ou subtrair (ao sair) da chave para uma peça numa casa. Zero para reis.
+     */
+    public static long unidade(int tipo, int cor, int casa) {
+        int contador = contador(tipo, casa);
+        return (contador < 0) ? 0 : 1L << (cor * BITS_POR_COR + contador * 4);
+    }
+
+    /**
+     * Chave com {@code quantidade} peças de um contador para uma cor (para montar assinaturas de finais).
+     */
+    public static long de(int cor, int contador, int quantidade) {
+        return (long) quantidade << (cor * BITS_POR_COR + contador * 4);
+    }
+
+    public static int contar(long chave, int cor, int contador) {
+        return (int) ((chave >>> (cor * BITS_POR_COR + contador * 4)) & 0xF);
+    }
+
+    /**
+     * A cor só tem o rei.
+     */
+    public static boolean soRei(long chave, int cor) {
+        return ((chave >>> (cor * BITS_POR_COR)) & 0xFFFFFF) == 0;
+    }
+
+    /**
+     * Empate morto em O(1): rei contra rei, rei e uma peça menor contra rei, ou só bispos de uma mesma cor de casa.
+     */
+    public static boolean insuficiente(long chave) {
+        if ((chave & PESADAS) != 0) {
+            return false;
+        }
+        int cavalos = contar(chave, BRANCO, CAVALOS) + contar(chave, PRETO, CAVALOS);
+        int claros = contar(chave, BRANCO, BISPOS_CLAROS) + contar(chave, PRETO, BISPOS_CLAROS);
+        int escuros = contar(chave, BRANCO, BISPOS_ESCUROS) + contar(chave, PRETO, BISPOS_ESCUROS);
+        if (cavalos == 0) {
+            return claros == 0 || escuros == 0;
+        }
+        return cavalos == 1 && claros + escuros == 0;
+    }
+}
@@ -0,0 +1,94 @@
+package Tabuleiro;
+
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Mede quantos bytes de heap cada partida custa em cada representação: o {@link Tabuleiro} de objetos
+ * ({@link Casa}, {@code Peca} e as listas de casas legais), a {@link Posicao} de primitivos recém carregada e depois
+ * de alguns lances, e o instantâneo em bytes usado para hibernar partidas.
+ * <p>
+ * O Tabuleiro é estático, então só dá para medir uma instância; as demais medidas dividem o crescimento do heap
+ * por muitas instâncias vivas ao mesmo tempo. Os números são aproximados (dependem da JVM e do GC), mas
+ * bastam para comparar as representações. Rodar com heap folgado, por exemplo {@code -Xmx2g}.
+ *
+ * <pre>
+ * java Tabuleiro.MedidorMemoria [quantidade] [meio-lances]
+ * </pre>
+ */
+public final class MedidorMemoria {
+    private static final String FEN_INICIAL = Tabuleiro.FEN_POS_INICIAL + " w KQkq - 0 1";
+
+    private MedidorMemoria() {
+    }
+
+    public static void main(String[] args) {
+        int quantidade = (args.length > 0) ? Integer.parseInt(args[0]) : 100_000;
+        int meioLances = (args.length > 1) ? Integer.parseInt(args[1]) : 40;
+
+        System.out.printf("Tabuleiro (Casa/Peca), posição inicial: %,d bytes%n", medirTabuleiro());
+
+        long antes = usado();
+        Posicao[] posicoes = new Posicao[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            posicoes[i] = new Posicao(FEN_INICIAL);
+        }
+        long recemLidas = (usado() - antes) / quantidade;
+        System.out.printf("Posicao recém carregada: %,d bytes%n", recemLidas);
+
+        Random aleatorio = new Random(1);
+        int[] lances = new int[Posicao.MAX_LANCES];
+        long bytesInstantaneos = 0;
+        antes = usado();
+        for (Posicao posicao : posicoes) {
+            for (int ply = 0; ply < meioLances; ply++) {
+                int total = posicao.gerarLegais(lances);
+                if (total == 0) {
+                    break;
+                }
+                posicao.fazerLance(lances[aleatorio.nextInt(total)]);
+            }
+            bytesInstantaneos += posicao.tamanhoInstantaneo();
+        }
+        long pilhas = (usado() - antes) / quantidade;
+        System.out.printf("Posicao depois de %d meio-lances: %,d bytes (%,d da pilha para desfazer)%n",
+                meioLances, recemLidas + pilhas, pilhas);
+
+        byte[][] instantaneos = new byte[quantidade][];
+        antes = usado();
+        for (int i = 0; i < quantidade; i++) {
+            ByteBuffer destino = ByteBuffer.allocate(posicoes[i].tamanhoInstantaneo());
+            posicoes[i].escreverInstantaneo(destino);
+            instantaneos[i] = destino.array();
+        }
+        System.out.printf("Instantâneo: %,d bytes no heap (%d de dados em média)%n",
+                (usado() - antes) / quantidade, bytesInstantaneos / quantidade);
+
+        long partidasPorGiga = (1L << 30) / Math.max(1, recemLidas + pilhas);
+        System.out.printf("%,d partidas vivas por GiB com Posicao%n", partidasPorGiga);
+        Reference.reachabilityFence(posicoes); // Mantém tudo vivo até o fim das medidas.
+        Reference.reachabilityFence(instantaneos);
+    }
+
+    private static long medirTabuleiro() {
+        long antes = usado();
+        Tabuleiro.criarCasas();
+        Tabuleiro.lerFEN(Tabuleiro.FEN_POS_INICIAL);
+        Tabuleiro.atualizarEstado();
+        return usado() - antes;
+    }
+
+    private static long usado() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,150 @@
+package Tabuleiro;
+
+import static pecas.Peca.*;
+
+/**
+ * Conversão entre lances e notação algébrica padrão (SAN), ex: "Nf3", "exd5", "O-O", "e8=Q+", e leitura de
+ * lances em notação de coordenadas (UCI).
+ */
+public final class Notacao {
+    private static final String LETRAS = "  NBRQK";
+
+    private Notacao() {
+    }
+
+    public static String paraSAN(Posicao posicao, int lance) {
+        int origem = Lance.origem(lance);
+        int destino = Lance.destino(lance);
+        int tipo = Posicao.tipo(posicao.getPeca(origem));
+        StringBuilder san = new StringBuilder(8);
+
+        if (tipo == REI && Math.abs(destino - origem) == 2) {
+            san.append(destino > origem ? "O-O" : "O-O-O");
+        } else {
+            boolean captura = posicao.ehCaptura(lance);
+            if (tipo == PEAO) {
+                if (captura) {
+                    san.append((char) ('a' + Lance.coluna(origem)));
+                }
+            } else {
+                san.append(LETRAS.charAt(tipo));
+                desambiguar(posicao, lance, tipo, san);
+            }
+            if (captura) {
+                san.append('x');
+            }
+            san.append(Lance.casaString(destino));
+            if (Lance.promocao(lance) != 0) {
+                san.append('=').append(LETRAS.charAt(Lance.promocao(lance)));
+            }
+        }
+
+        posicao.fazerLance(lance);
+        if (posicao.emXeque()) {
+            san.append(posicao.temLanceLegal() ? '+' : '#');
+        }
+        posicao.desfazerLance();
+        return san.toString();
+    }
+
+    // Acrescenta coluna, fileira ou ambas quando outra peça igual também alcança o destino.
+    private static void desambiguar(Posicao posicao, int lance, int tipo, StringBuilder san) {
+        int origem = Lance.origem(lance);
+        int[] lances = new int[Posicao.MAX_LANCES];
+        int total = posicao.gerarLegais(lances);
+
+        boolean ambiguo = false;
+        boolean mesmaColuna = false;
+        boolean mesmaFileira = false;
+        for (int i = 0; i < total; i++) {
+            int outro = lances[i];
+            int outraOrigem = Lance.origem(outro);
+            if (outraOrigem == origem || Lance.destino(outro) != Lance.destino(lance)
+                    || Posicao.tipo(posicao.getPeca(outraOrigem)) != tipo) {
+                continue;
+            }
+            ambiguo = true;
+            mesmaColuna |= Lance.coluna(outraOrigem) == Lance.coluna(origem);
+            mesmaFileira |= Lance.fileira(outraOrigem) == Lance.fileira(origem);
+        }
+
+        if (!ambiguo) {
+            return;
+        }
+        if (!mesmaColuna) {
+            san.append((char) ('a' + Lance.coluna(origem)));
+        } else if (!mesmaFileira) {
+            san.append((char) ('1' + Lance.fileira(origem)));
+        } else {
+            san.append(Lance.casaString(origem));
+        }
+    }
+
+    /**
+     * Encontra o lance legal correspondente ao SAN, ou {@link Lance#NENHUM}.
+     * Aceita as variações comuns: sufixos +, #, !, ?, roque com zeros e promoção sem '='.
+     */
+    public static int deSAN(Posicao posicao, String san) {
+        String procurado = normalizar(san);
+        int[] lances = new int[Posicao.MAX_LANCES];
+        int total = posicao.gerarLegais(lances);
+        for (int i = 0; i < total; i++) {
+            if (normalizar(paraSAN(posicao, lances[i])).equals(procurado)) {
+                return lances[i];
+            }
+        }
+        return Lance.NENHUM;
+    }
+
+    /**
+     * Encontra o lance legal em notação de coordenadas (UCI, ex: "e2e4", "e7e8q"), ou {@link Lance#NENHUM}.
+     * Promoção sem a letra da peça vale como dama; letra que não é n, b, r ou q, ou letra num lance que não
+     * promove, deixa o texto inválido.
+     */
+    public static int deUCI(Posicao posicao, String uci) {
+        if (uci.length() < 4 || uci.length() > 5) {
+            return Lance.NENHUM;
+        }
+        int origem = casaDe(uci.charAt(0), uci.charAt(1));
+        int destino = casaDe(uci.charAt(2), uci.charAt(3));
+        if (origem < 0 || destino < 0) {
+            return Lance.NENHUM;
+        }
+        int promocao = 0;
+        boolean promove = Posicao.tipo(posicao.getPeca(origem)) == PEAO
+                && (Lance.fileira(destino) == 0 || Lance.fileira(destino) == 7);
+        if (promove) {
+            promocao = (uci.length() == 4) ? RAINHA : LETRAS.indexOf(Character.toUpperCase(uci.charAt(4)));
+            if (promocao < CAVALO || promocao > RAINHA) { // Letra que não é de peça de promoção.
+                return Lance.NENHUM;
+            }
+        } else if (uci.length() == 5) { // Letra de promoção num lance que não promove.
+            return Lance.NENHUM;
+        }
+        // Monta o lance direto e testa só ele, sem gerar a lista de legais.
+        int lance = Lance.criar(origem, destino, promocao);
+        return posicao.ehLegal(lance) ? lance : Lance.NENHUM;
+    }
+
+    private static int casaDe(char coluna, char fileira) {
+        coluna = Character.toLowerCase(coluna);
+        if (coluna < 'a' || coluna > 'h' || fileira < '1' || fileira > '8') {
+            return -1;
+        }
+        return Lance.casa(coluna - 'a', fileira - '1');
+    }
+
+    private static String normalizar(String san) {
+        StringBuilder s = new StringBuilder(san.length());
+        for (int i = 0; i < san.length(); i++) {
+            char c = san.charAt(i);
+            switch (c) {
+                case '+', '#', '!', '?', '=' -> {
+                }
+                case '0' -> s.append('O');
+                default -> s.append(c);
+            }
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,19 @@
+package Tabuleiro;
+
+/**
+ * Avisado pelo {@link Tabuleiro} quando uma partida começa e a cada lance aceito por
+ * {@link Tabuleiro#moverPeca(int, int, int, int)}. Roda na thread que moveu a peça, então precisa ser rápido.
+ */
+public interface OuvinteLance {
+
+    /**
+     * O histórico foi reiniciado: a partida recomeça na posição da FEN.
+     */
+    void partidaIniciada(String fen);
+
+    /**
+     * @param lance     o lance na codificação de {@link Lance}.
+     * @param meioLance quantos meio-lances foram jogados desde {@link #partidaIniciada}, contando este.
+     */
+    void lanceAceito(int lance, int meioLance);
+}
@@ -0,0 +1,160 @@
+package Tabuleiro;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Conta as folhas da árvore de lances legais até uma profundidade fixa, para conferir a geração de lances contra
+ * os valores conhecidos (posição inicial: 20, 400, 8902, 197281, 4865609, ...).
+ * <p>
+ * A versão paralela divide a árvore em tarefas de fork/join: cada tarefa recebe a sua própria {@link Posicao},
+ * copiada com {@link Posicao#copiarPara}, então as threads nunca compartilham uma posição.
+ * <p>
+ * No último nível as folhas não são jogadas: o número de lances legais já é a contagem. Para profundidades
+ * grandes (7 ou 8 da posição inicial), {@link #contarComTabela} guarda as subárvores já contadas numa
+ * {@link TabelaPerft} e reaproveita as transposições.
+ *
+ * <pre>
+ * java Tabuleiro.Perft [-t megabytes] profundidade [FEN]
+ * </pre>
+ */
+public final class Perft {
+    private static final String FEN_INICIAL = Tabuleiro.FEN_POS_INICIAL + " w KQkq - 0 1";
+    private static final int PROFUNDIDADE_SEQUENCIAL = 3; // Subárvores menores que isso não compensam uma tarefa.
+
+    private Perft() {
+    }
+
+    public static long contar(Posicao posicao, int profundidade) {
+        return contar(posicao, profundidade, new int[profundidade + 1][Posicao.MAX_LANCES]);
+    }
+
+    private static long contar(Posicao posicao, int profundidade, int[][] listas) {
+        if (profundidade == 0) {
+            return 1;
+        }
+        int[] lista = listas[profundidade];
+        int total = posicao.gerarLegais(lista);
+        if (profundidade == 1) {
+            return total;
+        }
+        long folhas = 0;
+        for (int i = 0; i < total; i++) {
+            posicao.fazerLance(lista[i]);
+            folhas += contar(posicao, profundidade - 1, listas);
+            posicao.desfazerLance();
+        }
+        return folhas;
+    }
+
+    /**
+     * Mesmo resultado de {@link #contar}, consultando e preenchendo uma tabela de {@code megabytes} criada para
+     * esta contagem.
+     */
+    public static long contarComTabela(Posicao posicao, int profundidade, int megabytes) {
+        return contarComTabela(posicao, profundidade, new TabelaPerft(megabytes));
+    }
+
+    static long contarComTabela(Posicao posicao, int profundidade, TabelaPerft tabela) {
+        return contar(posicao, profundidade, new int[profundidade + 1][Posicao.MAX_LANCES], tabela);
+    }
+
+    private static long contar(Posicao posicao, int profundidade, int[][] listas, TabelaPerft tabela) {
+        if (profundidade <= 1) {
+            return contar(posicao, profundidade, listas); // Contagem direta, mais barata que a consulta.
+        }
+        long folhas = tabela.consultar(posicao.getHash(), profundidade);
+        if (folhas >= 0) {
+            return folhas;
+        }
+        int[] lista = listas[profundidade];
+        int total = posicao.gerarLegais(lista);
+        folhas = 0;
+        for (int i = 0; i < total; i++) {
+            posicao.fazerLance(lista[i]);
+            folhas += contar(posicao, profundidade - 1, listas, tabela);
+            posicao.desfazerLance();
+        }
+        tabela.gravar(posicao.getHash(), profundidade, folhas);
+        return folhas;
+    }
+
+    /**
+     * Mesmo resultado de {@link #contar}, dividido entre as threads do pool. A posição não é alterada.
+     */
+    public static long contarParalelo(Posicao posicao, int profundidade, ForkJoinPool pool) {
+        return pool.invoke(new Tarefa(posicao.copiar(), profundidade));
+    }
+
+    @SuppressWarnings("serial") // Nunca é serializada; só roda dentro do pool.
+    private static final class Tarefa extends RecursiveTask<Long> {
+        private final Posicao posicao; // Só desta tarefa.
+        private final int profundidade;
+
+        Tarefa(Posicao posicao, int profundidade) {
+            this.posicao = posicao;
+            this.profundidade = profundidade;
+        }
+
+        @Override
+        protected Long compute() {
+            if (profundidade <= PROFUNDIDADE_SEQUENCIAL) {
+                return contar(posicao, profundidade);
+            }
+            int[] lista = new int[Posicao.MAX_LANCES];
+            int total = posicao.gerarLegais(lista);
+            Tarefa[] filhas = new Tarefa[total];
+            for (int i = 0; i < total; i++) {
+                Posicao filha = new Posicao();
+                posicao.copiarPara(filha);
+                filha.fazerLance(lista[i]);
+                filhas[i] = new Tarefa(filha, profundidade - 1);
+            }
+            invokeAll(filhas);
+            long folhas = 0;
+            for (Tarefa filha : filhas) {
+                folhas += filha.join();
+            }
+            return folhas;
+        }
+    }
+
+    public static void main(String[] args) {
+        boolean comTabela = args.length > 1 && args[0].equals("-t");
+        int megabytes = 0;
+        if (comTabela) {
+            megabytes = Integer.parseInt(args[1]);
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        int profundidade = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+        Posicao posicao = new Posicao((args.length > 1)
+                ? String.join(" ", Arrays.copyOfRange(args, 1, args.length)) : FEN_INICIAL);
+
+        if (comTabela) {
+            TabelaPerft tabela = new TabelaPerft(megabytes);
+            long inicio = System.nanoTime();
+            long folhas = contarComTabela(posicao, profundidade, tabela);
+            System.out.printf("perft(%d) = %,d%n", profundidade, folhas);
+            System.out.printf("%,d ms com tabela de %d MB (%,d acertos)%n",
+                    (System.nanoTime() - inicio) / 1_000_000, tabela.getMegabytes(), tabela.getAcertos());
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        long sequencial = contar(posicao, profundidade);
+        long nanosSequencial = System.nanoTime() - inicio;
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        inicio = System.nanoTime();
+        long paralelo = contarParalelo(posicao, profundidade, pool);
+        long nanosParalelo = System.nanoTime() - inicio;
+
+        System.out.printf("perft(%d) = %,d%n", profundidade, sequencial);
+        if (paralelo != sequencial) {
+            System.out.printf("Versão paralela divergiu: %,d%n", paralelo);
+        }
+        System.out.printf("%,d ms sequencial, %,d ms em paralelo (%d threads)%n",
+                nanosSequencial / 1_000_000, nanosParalelo / 1_000_000, pool.getParallelism());
+    }
+}
@@ -0,0 +1,1369 @@
+package Tabuleiro;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static Tabuleiro.Tabuleiro.BRANCO;
+import static Tabuleiro.Tabuleiro.PRETO;
+import static Tabuleiro.Zobrist.*;
+import static pecas.Peca.*;
+
+/**
+ * Posição representada só por primitivos: uma caixa de correio de 64 bytes mais o estado da partida
+ * (vez, direitos de roque, casa de en passant e relógios de lances).
+ * <p>
+ * Diferente do {@link Tabuleiro}, que é estático e liga objetos {@code Casa}/{@code Peca}, uma Posicao pode ser
+ * instanciada à vontade e reaproveitada: {@link #lerFEN(CharSequence)} sobrescreve o estado no lugar, sem alocar
+ * nada por caractere, o que permite carregar milhões de FENs (suítes EPD, dados de treino) sem gerar lixo.
+ * <p>
+ * Cada casa guarda {@code tipo | cor << 3}, com os tipos de {@link pecas.Peca} e 0 para casa vazia.
+ * As casas são indexadas como em {@link Lance}: a1 = 0, h8 = 63.
+ */
+public final class Posicao {
+    public static final int VAZIO = 0;
+    public static final int SEM_EN_PASSANT = -1;
+
+    private static final byte[] CODIGO_POR_CHAR = new byte[128];
+    private static final char[] CHAR_POR_CODIGO = new char[16];
+    private static final int LIMITE_CONTADOR = 100_000_000; // Teto dos números da FEN: valor * 10 + 9 ainda cabe num int.
+
+    static {
+        String letras = " pnbrqk";
+        for (int tipo = PEAO; tipo <= REI; tipo++) {
+            char letra = letras.charAt(tipo);
+            CODIGO_POR_CHAR[letra] = (byte) criarPeca(tipo, PRETO);
+            CODIGO_POR_CHAR[Character.toUpperCase(letra)] = (byte) criarPeca(tipo, BRANCO);
+            CHAR_POR_CODIGO[criarPeca(tipo, PRETO)] = letra;
+            CHAR_POR_CODIGO[criarPeca(tipo, BRANCO)] = Character.toUpperCase(letra);
+        }
+    }
+
+    public static final int MAX_LANCES = 256; // Limite seguro de lances pseudo-legais em qualquer posição.
+    private static final int MAX_LANCES_CASA = 27; // Dama no centro; peão promovendo fica em 12.
+
+    // Direções como pares (coluna, fileira).
+    private static final int[] ORTOGONAL_DC = {1, -1, 0, 0};
+    private static final int[] ORTOGONAL_DF = {0, 0, 1, -1};
+    private static final int[] DIAGONAL_DC = {1, 1, -1, -1};
+    private static final int[] DIAGONAL_DF = {1, -1, 1, -1};
+
+    private static final int[] PROMOCOES = {RAINHA, CAVALO, TORRE, BISPO};
+
+    // O que a geração escreve: tudo, só capturas e promoções a dama (quiescência), ou só o resto (quietos).
+    private static final int TODOS = 0;
+    private static final int CAPTURAS = 1;
+    private static final int QUIETOS = 2;
+
+    // Bitboards (bit = casa de Lance) usados na geração em conjunto dos peões.
+    private static final long COLUNA_A = 0x0101010101010101L;
+    private static final long COLUNA_H = COLUNA_A << 7;
+    private static final long FILEIRA_1 = 0xFFL;
+    private static final long FILEIRA_3 = FILEIRA_1 << 16;
+    private static final long FILEIRA_6 = FILEIRA_1 << 40;
+    private static final long FILEIRA_8 = FILEIRA_1 << 56;
+
+    // Direitos de roque que sobrevivem a um lance que sai de (ou chega em) cada casa.
+    private static final int[] MASCARA_ROQUE = new int[64];
+
+    static {
+        Arrays.fill(MASCARA_ROQUE, 15);
+        MASCARA_ROQUE[0] &= ~ROQUE_BRANCO_LONGO;
+        MASCARA_ROQUE[7] &= ~ROQUE_BRANCO_CURTO;
+        MASCARA_ROQUE[4] &= ~(ROQUE_BRANCO_CURTO | ROQUE_BRANCO_LONGO);
+        MASCARA_ROQUE[56] &= ~ROQUE_PRETO_LONGO;
+        MASCARA_ROQUE[63] &= ~ROQUE_PRETO_CURTO;
+        MASCARA_ROQUE[60] &= ~(ROQUE_PRETO_CURTO | ROQUE_PRETO_LONGO);
+    }
+
+    /**
+     * Direitos de roque que sobrevivem a um lance que sai de (ou chega em) {@code casa}.
+     */
+    static int mascaraRoque(int casa) {
+        return MASCARA_ROQUE[casa];
+    }
+
+    private final byte[] casas = new byte[64];
+    private final int[] reis = new int[2]; // Casa do rei de cada cor.
+    private final long[] ocupadas = new long[2]; // Bitboard das casas com peça de cada cor.
+    private final long[] peoes = new long[2]; // Bitboard dos peões de cada cor.
+    private int vez = BRANCO;
+    private int roque;
+    private int enPassant = SEM_EN_PASSANT;
+    private int meioLances;
+    private int numeroLance = 1;
+    private long hash;
+    private long material; // Chave de Material, mantida junto com o hash.
+
+    // Pilha para desfazer lances: o lance com o estado irreversível anterior (lance | estado << 16) e o hash
+    // anterior. Começa vazia e cresce sob demanda, então uma posição sem lances ocupa só algumas centenas de bytes.
+    private static final long[] PILHA_VAZIA = new long[0];
+    private static final int CAPACIDADE_INICIAL_PILHA = 16;
+
+    private int plyAnterior; // Lances feitos antes do início da pilha (ver lerInstantaneo).
+    private int pisoDesfazer; // Abaixo deste ply a pilha só tem hashes para a repetição, sem lances a desfazer.
+    private int ply;
+    private long[] pilhaDesfazer = PILHA_VAZIA;
+    private long[] pilhaHash = PILHA_VAZIA;
+
+    public Posicao() {
+    }
+
+    public Posicao(CharSequence fen) {
+        lerFEN(fen);
+    }
+
+    //region peças
+    public static int criarPeca(int tipo, int cor) {
+        return tipo | (cor << 3);
+    }
+
+    public static int tipo(int peca) {
+        return peca & 7;
+    }
+
+    public static int cor(int peca) {
+        return peca >>> 3;
+    }
+
+    public int getPeca(int casa) {
+        return casas[casa];
+    }
+
+    void colocar(int casa, int peca) {
+        casas[casa] = (byte) peca;
+    }
+    //endregion
+
+    //region estado
+    public int getVez() {
+        return vez;
+    }
+
+    void setVez(int vez) {
+        this.vez = vez;
+    }
+
+    public int getRoque() {
+        return roque;
+    }
+
+    void setRoque(int roque) {
+        this.roque = roque;
+    }
+
+    public int getEnPassant() {
+        return enPassant;
+    }
+
+    void setEnPassant(int enPassant) {
+        this.enPassant = enPassant;
+    }
+
+    public int getMeioLances() {
+        return meioLances;
+    }
+
+    void setMeioLances(int meioLances) {
+        this.meioLances = meioLances;
+    }
+
+    public int getNumeroLance() {
+        return numeroLance;
+    }
+
+    void setNumeroLance(int numeroLance) {
+        this.numeroLance = numeroLance;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public long getMaterial() {
+        return material;
+    }
+
+    public int getCasaRei(int cor) {
+        return reis[cor];
+    }
+
+    void limpar() {
+        Arrays.fill(casas, (byte) VAZIO);
+        vez = BRANCO;
+        roque = 0;
+        enPassant = SEM_EN_PASSANT;
+        meioLances = 0;
+        numeroLance = 1;
+        ply = 0;
+        pisoDesfazer = 0;
+    }
+
+    /**
+     * Recalcula o que deriva das casas (posição dos reis, hash e material) depois de a posição ser montada por fora.
+     */
+    void atualizarDerivados() {
+        reis[BRANCO] = -1;
+        reis[PRETO] = -1;
+        Arrays.fill(ocupadas, 0);
+        Arrays.fill(peoes, 0);
+        long novoHash = 0;
+        long novoMaterial = 0;
+        for (int casa = 0; casa < 64; casa++) {
+            int peca = casas[casa];
+            if (peca == VAZIO) {
+                continue;
+            }
+            ocupadas[cor(peca)] |= 1L << casa;
+            if (tipo(peca) == PEAO) {
+                peoes[cor(peca)] |= 1L << casa;
+            } else if (tipo(peca) == REI) {
+                reis[cor(peca)] = casa;
+            }
+            novoHash ^= Zobrist.peca(tipo(peca), cor(peca), casa);
+            novoMaterial += Material.unidade(tipo(peca), cor(peca), casa);
+        }
+        material = novoMaterial;
+        if (vez == PRETO) {
+            novoHash ^= vezPretas();
+        }
+        hash = novoHash ^ Zobrist.roque(roque) ^ hashEnPassant();
+        ply = 0;
+        plyAnterior = 0;
+        pisoDesfazer = 0;
+    }
+
+    // A coluna de en passant só entra no hash se algum peão da vez puder de fato capturar.
+    private long hashEnPassant() {
+        if (enPassant == SEM_EN_PASSANT) {
+            return 0;
+        }
+        int peao = criarPeca(PEAO, vez);
+        int coluna = Lance.coluna(enPassant);
+        int atras = (vez == BRANCO) ? enPassant - 8 : enPassant + 8; // Fileira dos peões que capturam.
+        if ((coluna > 0 && casas[atras - 1] == peao) || (coluna < 7 && casas[atras + 1] == peao)) {
+            return Zobrist.enPassant(coluna);
+        }
+        return 0;
+    }
+    //endregion
+
+    //region fazer e desfazer lances
+    /**
+     * Faz o lance sem verificar se é legal. Roque, en passant e promoção são deduzidos da posição, então lances
+     * vindos de qualquer fonte ({@link Lance#criar}, notação, registros gravados) funcionam igual.
+     */
+    public void fazerLance(int lance) {
+        int origem = Lance.origem(lance);
+        int destino = Lance.destino(lance);
+        int peca = casas[origem];
+        int tipo = tipo(peca);
+        int capturada = casas[destino];
+        boolean enPassantCapturado = tipo == PEAO && destino == enPassant;
+
+        if (ply == pilhaHash.length) {
+            crescerPilha(Math.max(CAPACIDADE_INICIAL_PILHA, ply * 2));
+        }
+        boolean promove = tipo == PEAO && Lance.promocao(lance) != 0;
+        long estado = capturada | (roque << 4) | ((enPassant + 1) << 8) | (enPassantCapturado ? 1 << 15 : 0)
+                | (promove ? 1 << 16 : 0) | ((long) meioLances << 17); // O relógio usa os 31 bits de cima.
+        pilhaDesfazer[ply] = lance | (estado << 16);
+        pilhaHash[ply] = hash;
+        ply++;
+
+        long h = hash ^ hashEnPassant() ^ Zobrist.roque(roque);
+
+        casas[origem] = VAZIO;
+        h ^= Zobrist.peca(tipo, vez, origem);
+        alternarBits(vez, tipo, (1L << origem) | (1L << destino));
+
+        if (capturada != VAZIO) {
+            h ^= Zobrist.peca(tipo(capturada), cor(capturada), destino);
+            material -= Material.unidade(tipo(capturada), cor(capturada), destino);
+            alternarBits(vez ^ 1, tipo(capturada), 1L << destino);
+        } else if (enPassantCapturado) {
+            int casaCapturada = (vez == BRANCO) ? destino - 8 : destino + 8;
+            casas[casaCapturada] = VAZIO;
+            alternarBits(vez ^ 1, PEAO, 1L << casaCapturada);
+            h ^= Zobrist.peca(PEAO, vez ^ 1, casaCapturada);
+            material -= Material.unidade(PEAO, vez ^ 1, casaCapturada);
+        }
+        if (promove) {
+            material += Material.unidade(Lance.promocao(lance), vez, destino) - Material.unidade(PEAO, vez, origem);
+            peoes[vez] ^= 1L << destino; // Chegou peão no bitboard, mas quem fica na casa é a peça promovida.
+        }
+
+        int pecaFinal = promove ? criarPeca(Lance.promocao(lance), vez) : peca;
+        casas[destino] = (byte) pecaFinal;
+        h ^= Zobrist.peca(tipo(pecaFinal), vez, destino);
+
+        if (tipo == REI) {
+            reis[vez] = destino;
+            if (destino - origem == 2) { // Roque pequeno: torre de h para f.
+                h ^= moverTorre(origem + 3, origem + 1);
+            } else if (origem - destino == 2) { // Roque grande: torre de a para d.
+                h ^= moverTorre(origem - 4, origem - 1);
+            }
+        }
+
+        roque &= MASCARA_ROQUE[origem] & MASCARA_ROQUE[destino];
+        enPassant = (tipo == PEAO && Math.abs(destino - origem) == 16) ? (origem + destino) / 2 : SEM_EN_PASSANT;
+        meioLances = (tipo == PEAO || capturada != VAZIO) ? 0 : meioLances + 1;
+        if (vez == PRETO) {
+            numeroLance++;
+        }
+
+        vez ^= 1;
+        hash = h ^ vezPretas() ^ Zobrist.roque(roque) ^ hashEnPassant();
+    }
+
+    private void alternarBits(int cor, int tipo, long bits) {
+        ocupadas[cor] ^= bits;
+        if (tipo == PEAO) {
+            peoes[cor] ^= bits;
+        }
+    }
+
+    private long moverTorre(int origem, int destino) {
+        int torre = casas[origem];
+        casas[origem] = VAZIO;
+        casas[destino] = (byte) torre;
+        ocupadas[cor(torre)] ^= (1L << origem) | (1L << destino);
+        return Zobrist.peca(TORRE, cor(torre), origem) ^ Zobrist.peca(TORRE, cor(torre), destino);
+    }
+
+    /**
+     * Desfaz o último lance feito com {@link #fazerLance(int)}.
+     *
+     * @throws IllegalStateException se não há lance a desfazer, inclusive os anteriores a um
+     *                               {@link #lerInstantaneo instantâneo} ou a uma {@link #copiarPara cópia}
+     */
+    public void desfazerLance() {
+        if (ply <= pisoDesfazer) {
+            throw new IllegalStateException("Não há lance para desfazer.");
+        }
+        ply--;
+        int lance = (int) (pilhaDesfazer[ply] & 0xFFFF);
+        long estado = pilhaDesfazer[ply] >>> 16;
+        hash = pilhaHash[ply];
+
+        int origem = Lance.origem(lance);
+        int destino = Lance.destino(lance);
+        int capturada = (int) (estado & 0xF);
+
+        vez ^= 1;
+        if (vez == PRETO) {
+            numeroLance--;
+        }
+        roque = (int) ((estado >>> 4) & 0xF);
+        enPassant = (int) ((estado >>> 8) & 0x7F) - 1;
+        meioLances = (int) (estado >>> 17);
+
+        int peca;
+        if ((estado & (1 << 16)) != 0) {
+            peca = criarPeca(PEAO, vez);
+            material += Material.unidade(PEAO, vez, origem) - Material.unidade(tipo(casas[destino]), vez, destino);
+        } else {
+            peca = casas[destino];
+        }
+        casas[origem] = (byte) peca;
+        casas[destino] = (byte) capturada;
+        alternarBits(vez, tipo(peca), (1L << origem) | (1L << destino));
+        if ((estado & (1 << 16)) != 0) {
+            peoes[vez] ^= 1L << destino;
+        }
+        if (capturada != VAZIO) {
+            material += Material.unidade(tipo(capturada), cor(capturada), destino);
+            alternarBits(vez ^ 1, tipo(capturada), 1L << destino);
+        }
+
+        if ((estado & (1 << 15)) != 0) {
+            int casaCapturada = (vez == BRANCO) ? destino - 8 : destino + 8;
+            casas[casaCapturada] = (byte) criarPeca(PEAO, vez ^ 1);
+            material += Material.unidade(PEAO, vez ^ 1, casaCapturada);
+            alternarBits(vez ^ 1, PEAO, 1L << casaCapturada);
+        }
+
+        if (tipo(peca) == REI) {
+            reis[vez] = origem;
+            if (destino - origem == 2) {
+                moverTorre(origem + 1, origem + 3);
+            } else if (origem - destino == 2) {
+                moverTorre(origem - 1, origem - 4);
+            }
+        }
+    }
+
+    /**
+     * Número de lances feitos desde que a posição foi carregada.
+     */
+    public int getPly() {
+        return plyAnterior + ply;
+    }
+
+    public int getUltimoLance() {
+        return ply == 0 ? Lance.NENHUM : (int) (pilhaDesfazer[ply - 1] & 0xFFFF);
+    }
+
+    private void crescerPilha(int capacidade) {
+        pilhaDesfazer = Arrays.copyOf(pilhaDesfazer, capacidade);
+        pilhaHash = Arrays.copyOf(pilhaHash, capacidade);
+    }
+    //endregion
+
+    //region empates
+    /**
+     * A posição atual já apareceu antes? Só olha para trás até o último lance irreversível (captura ou lance de
+     * peão), de dois em dois plies, então o custo é O(plies desde a última captura). Na busca uma única repetição
+     * já basta para tratar a linha como empate.
+     */
+    public boolean ehRepeticao() {
+        int limite = Math.max(0, ply - meioLances);
+        for (int i = ply - 2; i >= limite; i -= 2) {
+            if (pilhaHash[i] == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Quantas vezes a posição atual já apareceu antes dela mesma (2 = repetição tripla).
+     */
+    public int repeticoes() {
+        int vezes = 0;
+        int limite = Math.max(0, ply - meioLances);
+        for (int i = ply - 2; i >= limite; i -= 2) {
+            if (pilhaHash[i] == hash) {
+                vezes++;
+            }
+        }
+        return vezes;
+    }
+
+    public boolean regraDos50Lances() {
+        return meioLances >= 100;
+    }
+
+    /**
+     * Nenhum dos lados consegue dar mate. Consulta só a chave de material, então custa O(1).
+     */
+    public boolean materialInsuficiente() {
+        return Material.insuficiente(material);
+    }
+
+    /**
+     * Empate por repetição tripla, regra dos 50 lances ou material insuficiente (não considera afogamento).
+     */
+    public boolean ehEmpate() {
+        return regraDos50Lances() || materialInsuficiente() || repeticoes() >= 2;
+    }
+    //endregion
+
+    //region ataques e xeque
+    public boolean emXeque() {
+        return casaAtacada(reis[vez], vez ^ 1);
+    }
+
+    /**
+     * Testa se {@code casa} é atacada por alguma peça de {@code corAtacante}.
+     */
+    public boolean casaAtacada(int casa, int corAtacante) {
+        int coluna = Lance.coluna(casa);
+        int fileira = Lance.fileira(casa);
+
+        // Peões: um peão branco em p ataca p+7 e p+9, então procuramos atrás da casa.
+        int peao = criarPeca(PEAO, corAtacante);
+        int fileiraPeao = (corAtacante == BRANCO) ? fileira - 1 : fileira + 1;
+        if (fileiraPeao >= 0 && fileiraPeao < 8) {
+            if (coluna > 0 && casas[fileiraPeao * 8 + coluna - 1] == peao) return true;
+            if (coluna < 7 && casas[fileiraPeao * 8 + coluna + 1] == peao) return true;
+        }
+
+        if (atacadaPorSalto(Ataques.cavalo(casa), criarPeca(CAVALO, corAtacante))) return true;
+        if (atacadaPorSalto(Ataques.rei(casa), criarPeca(REI, corAtacante))) return true;
+
+        int rainha = criarPeca(RAINHA, corAtacante);
+        if (atacadaPorRaio(coluna, fileira, ORTOGONAL_DC, ORTOGONAL_DF, criarPeca(TORRE, corAtacante), rainha)) {
+            return true;
+        }
+        return atacadaPorRaio(coluna, fileira, DIAGONAL_DC, DIAGONAL_DF, criarPeca(BISPO, corAtacante), rainha);
+    }
+
+    // Os saltos são simétricos: a casa é atacada se o atacante está numa das casas que ela alcançaria.
+    private boolean atacadaPorSalto(long origens, int atacante) {
+        for (; origens != 0; origens &= origens - 1) {
+            if (casas[Long.numberOfTrailingZeros(origens)] == atacante) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bitboard das peças de {@code corAtacante} que atacam {@code casa}. Com a casa do rei, são as peças dando xeque.
+     */
+    private long atacantes(int casa, int corAtacante) {
+        long bits = Ataques.peao(corAtacante ^ 1, casa) & peoes[corAtacante];
+        int cavalo = criarPeca(CAVALO, corAtacante);
+        for (long origens = Ataques.cavalo(casa); origens != 0; origens &= origens - 1) {
+            if (casas[Long.numberOfTrailingZeros(origens)] == cavalo) {
+                bits |= origens & -origens;
+            }
+        }
+        int rainha = criarPeca(RAINHA, corAtacante);
+        bits |= atacantesPorRaio(casa, ORTOGONAL_DC, ORTOGONAL_DF, criarPeca(TORRE, corAtacante), rainha);
+        return bits | atacantesPorRaio(casa, DIAGONAL_DC, DIAGONAL_DF, criarPeca(BISPO, corAtacante), rainha);
+    }
+
+    private long atacantesPorRaio(int casa, int[] dc, int[] df, int atacante, int rainha) {
+        long bits = 0;
+        for (int i = 0; i < dc.length; i++) {
+            for (int c = Lance.coluna(casa) + dc[i], f = Lance.fileira(casa) + df[i];
+                 c >= 0 && c < 8 && f >= 0 && f < 8; c += dc[i], f += df[i]) {
+                int peca = casas[f * 8 + c];
+                if (peca != VAZIO) {
+                    if (peca == atacante || peca == rainha) {
+                        bits |= 1L << (f * 8 + c);
+                    }
+                    break;
+                }
+            }
+        }
+        return bits;
+    }
+
+    private boolean atacadaPorRaio(int coluna, int fileira, int[] dc, int[] df, int atacante, int rainha) {
+        for (int i = 0; i < dc.length; i++) {
+            for (int c = coluna + dc[i], f = fileira + df[i]; c >= 0 && c < 8 && f >= 0 && f < 8; c += dc[i], f += df[i]) {
+                int peca = casas[f * 8 + c];
+                if (peca != VAZIO) {
+                    if (peca == atacante || peca == rainha) {
+                        return true;
+                    }
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+    //endregion
+
+    //region geração de lances
+    /**
+     * Gera os lances pseudo-legais da vez (podem deixar o próprio rei em xeque) e devolve quantos foram escritos.
+     * {@code lista} precisa de pelo menos {@link #MAX_LANCES} posições.
+     */
+    public int gerarLances(int[] lista) {
+        return gerar(lista, TODOS);
+    }
+
+    /**
+     * Gera só capturas e promoções a dama, para a busca quiescente.
+     */
+    public int gerarCapturas(int[] lista) {
+        return gerar(lista, CAPTURAS);
+    }
+
+    /**
+     * Gera os lances pseudo-legais que {@link #gerarCapturas} deixa de fora: lances sem captura, fora os avanços
+     * que promovem a dama (mas com as subpromoções desses avanços). As duas juntas dão a mesma lista de
+     * {@link #gerarLances}, e nenhum lance sai nas duas.
+     */
+    public int gerarQuietos(int[] lista) {
+        return gerar(lista, QUIETOS);
+    }
+
+    /**
+     * Gera apenas os lances legais da vez.
+     */
+    public int gerarLegais(int[] lista) {
+        if (emXeque()) {
+            return gerarEvasoes(lista);
+        }
+        int total = gerarLances(lista);
+        int legais = 0;
+        for (int i = 0; i < total; i++) {
+            if (deixaReiSeguro(lista[i])) {
+                lista[legais++] = lista[i];
+            }
+        }
+        return legais;
+    }
+
+    /**
+     * Testa um lance isolado, sem gerar os demais: confere que a peça da vez alcança o destino pelas suas regras
+     * e só então faz e desfaz o lance para ver o rei. Aceita qualquer int, inclusive lances de outra posição.
+     */
+    public boolean ehLegal(int lance) {
+        return ehPseudoLegal(lance) && deixaReiSeguro(lance);
+    }
+
+    /**
+     * Diz se a vez tem algum lance legal, parando no primeiro encontrado. Começa pelo rei, que é quem mais tem
+     * lances quando a posição está em xeque.
+     */
+    public boolean temLanceLegal() {
+        int[] lista = new int[MAX_LANCES_CASA];
+        int rei = reis[vez];
+        if (rei >= 0 && temLegalDe(rei, lista)) {
+            return true;
+        }
+        for (int origem = 0; origem < 64; origem++) {
+            int peca = casas[origem];
+            if (peca != VAZIO && cor(peca) == vez && origem != rei && temLegalDe(origem, lista)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean temLegalDe(int origem, int[] lista) {
+        int total = gerarDe(origem, casas[origem], lista, 0, TODOS);
+        for (int i = 0; i < total; i++) {
+            if (deixaReiSeguro(lista[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Testa se a peça da vez alcança o destino pelas suas regras, sem olhar o próprio rei. Serve para conferir
+     * lances que não vieram da geração desta posição (lance da tabela de transposição, lances matadores).
+     */
+    public boolean ehPseudoLegal(int lance) {
+        if ((lance & ~0xFFFF) != 0) {
+            return false;
+        }
+        int origem = Lance.origem(lance);
+        int destino = Lance.destino(lance);
+        int peca = casas[origem];
+        int alvo = casas[destino];
+        if (peca == VAZIO || cor(peca) != vez || origem == destino || (alvo != VAZIO && cor(alvo) == vez)) {
+            return false;
+        }
+        int dc = Lance.coluna(destino) - Lance.coluna(origem);
+        int df = Lance.fileira(destino) - Lance.fileira(origem);
+        if (tipo(peca) == PEAO) {
+            return peaoAlcanca(origem, destino, dc, df, Lance.promocao(lance));
+        }
+        if (Lance.promocao(lance) != 0) {
+            return false;
+        }
+        return switch (tipo(peca)) {
+            case CAVALO -> (Ataques.cavalo(origem) & (1L << destino)) != 0;
+            case BISPO -> Math.abs(dc) == Math.abs(df) && caminhoLivre(origem, dc, df);
+            case TORRE -> (dc == 0 || df == 0) && caminhoLivre(origem, dc, df);
+            case RAINHA -> (dc == 0 || df == 0 || Math.abs(dc) == Math.abs(df)) && caminhoLivre(origem, dc, df);
+            case REI -> (Ataques.rei(origem) & (1L << destino)) != 0
+                    || (df == 0 && Math.abs(dc) == 2 && podeRocar(origem, dc > 0));
+            default -> false;
+        };
+    }
+
+    private boolean peaoAlcanca(int origem, int destino, int dc, int df, int promocao) {
+        int sentido = (vez == BRANCO) ? 1 : -1;
+        boolean promove = Lance.fileira(destino) == ((vez == BRANCO) ? 7 : 0);
+        if (promove ? (promocao < CAVALO || promocao > RAINHA) : promocao != 0) {
+            return false;
+        }
+        if (dc == 0) {
+            if (casas[destino] != VAZIO) {
+                return false;
+            }
+            return df == sentido || (df == 2 * sentido && Lance.fileira(origem) == ((vez == BRANCO) ? 1 : 6)
+                    && casas[origem + 8 * sentido] == VAZIO);
+        }
+        return Math.abs(dc) == 1 && df == sentido && (casas[destino] != VAZIO || destino == enPassant);
+    }
+
+    // Casas entre a origem e o destino (exclusive) vazias; a direção já foi conferida.
+    private boolean caminhoLivre(int origem, int dc, int df) {
+        int passos = Math.max(Math.abs(dc), Math.abs(df));
+        int passo = Integer.signum(df) * 8 + Integer.signum(dc);
+        for (int i = 1; i < passos; i++) {
+            if (casas[origem + i * passo] != VAZIO) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Faz o lance pseudo-legal, testa se o rei de quem jogou ficou fora de xeque e desfaz.
+     */
+    public boolean deixaReiSeguro(int lance) {
+        int cor = vez;
+        fazerLance(lance);
+        boolean seguro = !casaAtacada(reis[cor], cor ^ 1);
+        desfazerLance();
+        return seguro;
+    }
+
+    /**
+     * Gera só os lances legais da peça em {@code origem}, se ela for da vez; sem gerar nem testar os das outras.
+     */
+    public int gerarLegaisDe(int origem, int[] lista) {
+        int peca = casas[origem];
+        if (peca == VAZIO || cor(peca) != vez) {
+            return 0;
+        }
+        int total = gerarDe(origem, peca, lista, 0, TODOS);
+        int legais = 0;
+        for (int i = 0; i < total; i++) {
+            if (deixaReiSeguro(lista[i])) {
+                lista[legais++] = lista[i];
+            }
+        }
+        return legais;
+    }
+
+    /**
+     * Gera os lances legais da vez quando o rei está em xeque, sem gerar os lances que não tiram do xeque: só
+     * lances de rei, capturas de quem dá xeque e peças que se interpõem entre ele e o rei. Em xeque duplo só o rei
+     * pode jogar. Só vale com a vez em xeque; fora disso não gera nada além dos lances de rei.
+     */
+    public int gerarEvasoes(int[] lista) {
+        int rei = reis[vez];
+        int n = 0;
+        for (long destinos = Ataques.rei(rei) & ~ocupadas[vez]; destinos != 0; destinos &= destinos - 1) {
+            int lance = Lance.criar(rei, Long.numberOfTrailingZeros(destinos));
+            if (deixaReiSeguro(lance)) {
+                lista[n++] = lance;
+            }
+        }
+
+        long xeques = atacantes(rei, vez ^ 1);
+        if (xeques == 0 || (xeques & (xeques - 1)) != 0) {
+            return n;
+        }
+        int atacante = Long.numberOfTrailingZeros(xeques);
+        long interposicoes = Ataques.entre(rei, atacante);
+        long alvos = interposicoes | xeques;
+
+        int inicio = n;
+        for (long pecas = ocupadas[vez] & ~peoes[vez] & ~(1L << rei); pecas != 0; pecas &= pecas - 1) {
+            int origem = Long.numberOfTrailingZeros(pecas);
+            for (long destinos = alvos; destinos != 0; destinos &= destinos - 1) {
+                int lance = Lance.criar(origem, Long.numberOfTrailingZeros(destinos));
+                if (ehPseudoLegal(lance)) {
+                    lista[n++] = lance;
+                }
+            }
+        }
+
+        // O peão que acabou de andar duas casas e dá xeque também sai tomado en passant.
+        long capturas = xeques;
+        if (enPassant != SEM_EN_PASSANT) {
+            int casaPeao = enPassant + ((vez == BRANCO) ? -8 : 8);
+            if (casaPeao == atacante || (interposicoes & (1L << enPassant)) != 0) {
+                capturas |= 1L << enPassant;
+            }
+        }
+        n = gerarPeoes(lista, n, TODOS, interposicoes, capturas);
+
+        // Sobra só conferir as cravadas.
+        int legais = inicio;
+        for (int i = inicio; i < n; i++) {
+            if (deixaReiSeguro(lista[i])) {
+                lista[legais++] = lista[i];
+            }
+        }
+        return legais;
+    }
+
+    // As peças são geradas casa a casa, percorrendo só as casas ocupadas; os peões saem todos juntos no fim.
+    private int gerar(int[] lista, int tipo) {
+        int n = 0;
+        for (long pecas = ocupadas[vez] & ~peoes[vez]; pecas != 0; pecas &= pecas - 1) {
+            int origem = Long.numberOfTrailingZeros(pecas);
+            n = gerarDe(origem, casas[origem], lista, n, tipo);
+        }
+        return gerarPeoes(lista, n, tipo, ~0L, ocupadas[vez ^ 1] | bitEnPassant());
+    }
+
+    private long bitEnPassant() {
+        return (enPassant == SEM_EN_PASSANT) ? 0 : 1L << enPassant;
+    }
+
+    /**
+     * Lances de todos os peões da vez de uma só vez: cada tipo de lance (avanço, avanço duplo, captura para cada
+     * lado) é um deslocamento do bitboard dos peões, e cada bit que sobra é um destino cuja origem está a um
+     * deslocamento fixo dele. Mesma saída de {@code gerarPeao} casa a casa, em outra ordem. Os avanços só vão para
+     * as casas de {@code avancos} e as capturas só para as de {@code alvos} (as peças adversárias e a casa de en
+     * passant, ou menos que isso nas evasões de xeque).
+     */
+    private int gerarPeoes(int[] lista, int n, int tipo, long avancos, long alvos) {
+        int frente = (vez == BRANCO) ? 8 : -8;
+        long promocao = (vez == BRANCO) ? FILEIRA_8 : FILEIRA_1;
+        long proprios = peoes[vez];
+        long vazias = ~(ocupadas[BRANCO] | ocupadas[PRETO]);
+        long umPasso = deslocar(proprios, frente) & vazias;
+
+        n = adicionarDestinos(umPasso & promocao & avancos, frente, lista, n, true, tipo);
+        if (tipo != CAPTURAS) {
+            n = adicionarDestinos(umPasso & ~promocao & avancos, frente, lista, n, false, TODOS);
+            long base = (vez == BRANCO) ? FILEIRA_3 : FILEIRA_6; // Onde para um peão que saiu da fileira inicial.
+            long doisPassos = deslocar(umPasso & base, frente) & vazias & avancos;
+            n = adicionarDestinos(doisPassos, 2 * frente, lista, n, false, TODOS);
+        }
+        if (tipo == QUIETOS) {
+            return n;
+        }
+
+        long capturas = deslocar(proprios & ~COLUNA_A, frente - 1) & alvos;
+        n = adicionarDestinos(capturas & promocao, frente - 1, lista, n, true, TODOS);
+        n = adicionarDestinos(capturas & ~promocao, frente - 1, lista, n, false, TODOS);
+        capturas = deslocar(proprios & ~COLUNA_H, frente + 1) & alvos;
+        n = adicionarDestinos(capturas & promocao, frente + 1, lista, n, true, TODOS);
+        return adicionarDestinos(capturas & ~promocao, frente + 1, lista, n, false, TODOS);
+    }
+
+    private static long deslocar(long bitboard, int casas) {
+        return (casas > 0) ? bitboard << casas : bitboard >>> -casas;
+    }
+
+    private static int adicionarDestinos(long destinos, int deslocamento, int[] lista, int n, boolean promove,
+                                         int tipo) {
+        for (; destinos != 0; destinos &= destinos - 1) {
+            int destino = Long.numberOfTrailingZeros(destinos);
+            if (promove) {
+                n = adicionarPromocoes(destino - deslocamento, destino, lista, n, tipo);
+            } else {
+                lista[n++] = Lance.criar(destino - deslocamento, destino);
+            }
+        }
+        return n;
+    }
+
+    private int gerarDe(int origem, int peca, int[] lista, int n, int tipo) {
+        switch (tipo(peca)) {
+            case PEAO -> n = gerarPeao(origem, lista, n, tipo);
+            case CAVALO -> n = gerarSaltos(origem, Ataques.cavalo(origem), lista, n, tipo);
+            case BISPO -> n = gerarRaios(origem, DIAGONAL_DC, DIAGONAL_DF, lista, n, tipo);
+            case TORRE -> n = gerarRaios(origem, ORTOGONAL_DC, ORTOGONAL_DF, lista, n, tipo);
+            case RAINHA -> {
+                n = gerarRaios(origem, DIAGONAL_DC, DIAGONAL_DF, lista, n, tipo);
+                n = gerarRaios(origem, ORTOGONAL_DC, ORTOGONAL_DF, lista, n, tipo);
+            }
+            case REI -> {
+                n = gerarSaltos(origem, Ataques.rei(origem), lista, n, tipo);
+                if (tipo != CAPTURAS) {
+                    n = gerarRoques(origem, lista, n);
+                }
+            }
+        }
+        return n;
+    }
+
+    private int gerarPeao(int origem, int[] lista, int n, int tipo) {
+        int frente = (vez == BRANCO) ? 8 : -8;
+        int fileiraInicial = (vez == BRANCO) ? 1 : 6;
+        int fileiraPromocao = (vez == BRANCO) ? 7 : 0;
+        int coluna = Lance.coluna(origem);
+        int umaFrente = origem + frente;
+        boolean promove = Lance.fileira(umaFrente) == fileiraPromocao;
+
+        if (casas[umaFrente] == VAZIO) {
+            if (promove) {
+                n = adicionarPromocoes(origem, umaFrente, lista, n, tipo);
+            } else if (tipo != CAPTURAS) {
+                lista[n++] = Lance.criar(origem, umaFrente);
+                if (Lance.fileira(origem) == fileiraInicial && casas[umaFrente + frente] == VAZIO) {
+                    lista[n++] = Lance.criar(origem, umaFrente + frente);
+                }
+            }
+        }
+
+        for (int lado = -1; lado <= 1 && tipo != QUIETOS; lado += 2) {
+            if ((lado < 0 && coluna == 0) || (lado > 0 && coluna == 7)) {
+                continue;
+            }
+            int destino = umaFrente + lado;
+            int alvo = casas[destino];
+            if ((alvo != VAZIO && cor(alvo) != vez) || destino == enPassant) {
+                if (promove) {
+                    n = adicionarPromocoes(origem, destino, lista, n, TODOS);
+                } else {
+                    lista[n++] = Lance.criar(origem, destino);
+                }
+            }
+        }
+        return n;
+    }
+
+    // Num avanço que promove, a dama fica com as capturas e as subpromoções com os quietos.
+    private static int adicionarPromocoes(int origem, int destino, int[] lista, int n, int tipo) {
+        int primeira = (tipo == QUIETOS) ? 1 : 0;
+        int ultima = (tipo == CAPTURAS) ? 1 : PROMOCOES.length;
+        for (int i = primeira; i < ultima; i++) {
+            lista[n++] = Lance.criar(origem, destino, PROMOCOES[i]);
+        }
+        return n;
+    }
+
+    private int gerarSaltos(int origem, long alvos, int[] lista, int n, int tipo) {
+        for (; alvos != 0; alvos &= alvos - 1) {
+            int destino = Long.numberOfTrailingZeros(alvos);
+            int alvo = casas[destino];
+            if (alvo == VAZIO ? tipo != CAPTURAS : tipo != QUIETOS && cor(alvo) != vez) {
+                lista[n++] = Lance.criar(origem, destino);
+            }
+        }
+        return n;
+    }
+
+    private int gerarRaios(int origem, int[] dc, int[] df, int[] lista, int n, int tipo) {
+        int coluna = Lance.coluna(origem);
+        int fileira = Lance.fileira(origem);
+        for (int i = 0; i < dc.length; i++) {
+            for (int c = coluna + dc[i], f = fileira + df[i]; c >= 0 && c < 8 && f >= 0 && f < 8; c += dc[i], f += df[i]) {
+                int destino = f * 8 + c;
+                int alvo = casas[destino];
+                if (alvo == VAZIO) {
+                    if (tipo != CAPTURAS) {
+                        lista[n++] = Lance.criar(origem, destino);
+                    }
+                    continue;
+                }
+                if (tipo != QUIETOS && cor(alvo) != vez) {
+                    lista[n++] = Lance.criar(origem, destino);
+                }
+                break;
+            }
+        }
+        return n;
+    }
+
+    // Roque só é gerado se for legal: direitos, caminho livre e rei sem passar por casa atacada.
+    private int gerarRoques(int origem, int[] lista, int n) {
+        int base = (vez == BRANCO) ? 0 : 56;
+        int curto = (vez == BRANCO) ? ROQUE_BRANCO_CURTO : ROQUE_PRETO_CURTO;
+        int longo = (vez == BRANCO) ? ROQUE_BRANCO_LONGO : ROQUE_PRETO_LONGO;
+
+        if (origem != base + 4 || (roque & (curto | longo)) == 0 || casaAtacada(origem, vez ^ 1)) {
+            return n;
+        }
+        if (caminhoDoRoqueLivre(base, true)) {
+            lista[n++] = Lance.criar(origem, base + 6);
+        }
+        if (caminhoDoRoqueLivre(base, false)) {
+            lista[n++] = Lance.criar(origem, base + 2);
+        }
+        return n;
+    }
+
+    private boolean podeRocar(int origem, boolean curto) {
+        int base = (vez == BRANCO) ? 0 : 56;
+        return origem == base + 4 && caminhoDoRoqueLivre(base, curto) && !casaAtacada(origem, vez ^ 1);
+    }
+
+    // Direito de roque, casas entre rei e torre vazias e casas por onde o rei passa fora de ataque.
+    private boolean caminhoDoRoqueLivre(int base, boolean curto) {
+        int inimiga = vez ^ 1;
+        if (curto) {
+            return (roque & ((vez == BRANCO) ? ROQUE_BRANCO_CURTO : ROQUE_PRETO_CURTO)) != 0
+                    && casas[base + 5] == VAZIO && casas[base + 6] == VAZIO
+                    && !casaAtacada(base + 5, inimiga) && !casaAtacada(base + 6, inimiga);
+        }
+        return (roque & ((vez == BRANCO) ? ROQUE_BRANCO_LONGO : ROQUE_PRETO_LONGO)) != 0
+                && casas[base + 1] == VAZIO && casas[base + 2] == VAZIO && casas[base + 3] == VAZIO
+                && !casaAtacada(base + 3, inimiga) && !casaAtacada(base + 2, inimiga);
+    }
+
+    /**
+     * Um lance é captura se o destino tem peça ou se é um peão indo para a casa de en passant.
+     */
+    public boolean ehCaptura(int lance) {
+        int destino = Lance.destino(lance);
+        return casas[destino] != VAZIO || (destino == enPassant && tipo(casas[Lance.origem(lance)]) == PEAO);
+    }
+    //endregion
+
+    //region FEN
+    /**
+     * Lê uma FEN completa (seis campos) sobrescrevendo esta posição.
+     * <p>
+     * Os campos depois da disposição das peças são opcionais: sem eles a vez é das brancas, os relógios começam
+     * zerados e os direitos de roque são deduzidos de reis e torres nas casas iniciais, como o {@link Tabuleiro}
+     * sempre fez.
+     *
+     * @throws IllegalArgumentException se a FEN for inválida. A posição fica vazia nesse caso.
+     */
+    public void lerFEN(CharSequence fen) {
+        int fim = lerFEN(fen, 0);
+        for (int i = fim; i < fen.length(); i++) {
+            if (fen.charAt(i) != ' ') {
+                limpar();
+                throw new IllegalArgumentException("FEN inválido! (Conteúdo extra após os seis campos)");
+            }
+        }
+    }
+
+    /**
+     * Lê os campos de FEN a partir de {@code inicio} e devolve o índice logo após o último campo lido.
+     * Os dois relógios só são consumidos se forem numéricos, então o mesmo método serve para linhas EPD,
+     * em que as operações começam logo depois do campo de en passant.
+     */
+    public int lerFEN(CharSequence fen, int inicio) {
+        limpar();
+        try {
+            int fim = lerCampos(fen, inicio);
+            atualizarDerivados();
+            validar();
+            return fim;
+        } catch (IllegalArgumentException e) {
+            limpar();
+            throw e;
+        }
+    }
+
+    private int lerCampos(CharSequence fen, int inicio) {
+        int tamanho = fen.length();
+        int i = pularEspacos(fen, inicio);
+
+        // 1. Disposição das peças, da oitava fileira para a primeira.
+        int coluna = 0;
+        int fileira = 7;
+        for (; i < tamanho; i++) {
+            char c = fen.charAt(i);
+            if (c == ' ') {
+                break;
+            }
+            if (c == '/') {
+                if (coluna != 8 || fileira == 0) {
+                    throw new IllegalArgumentException("FEN inválido! (Fileira com número errado de casas)");
+                }
+                fileira--;
+                coluna = 0;
+            } else if (c >= '1' && c <= '8') {
+                coluna += c - '0';
+                if (coluna > 8) {
+                    throw new IllegalArgumentException("FEN inválido! (Mais de 8 colunas lidas!)");
+                }
+            } else {
+                int peca = (c < 128) ? CODIGO_POR_CHAR[c] : VAZIO;
+                if (peca == VAZIO) {
+                    throw new IllegalArgumentException("FEN inválido! (Caracter inválido: '" + c + "')");
+                }
+                if (coluna >= 8) {
+                    throw new IllegalArgumentException("FEN inválido! (Mais de 8 colunas lidas!)");
+                }
+                casas[fileira * 8 + coluna++] = (byte) peca;
+            }
+        }
+        if (fileira != 0 || coluna != 8) {
+            throw new IllegalArgumentException("FEN inválido! (Menos de 64 casas lidas!)");
+        }
+
+        // 2. Vez.
+        i = pularEspacos(fen, i);
+        if (i >= tamanho) {
+            roque = deduzirRoque();
+            return i;
+        }
+        switch (fen.charAt(i++)) {
+            case 'w' -> vez = BRANCO;
+            case 'b' -> vez = PRETO;
+            default -> throw new IllegalArgumentException("FEN inválido! (Vez deve ser 'w' ou 'b')");
+        }
+
+        // 3. Direitos de roque.
+        i = pularEspacos(fen, i);
+        if (i >= tamanho) {
+            roque = deduzirRoque();
+            return i;
+        }
+        if (fen.charAt(i) == '-') {
+            i++;
+        } else {
+            for (; i < tamanho && fen.charAt(i) != ' '; i++) {
+                roque |= switch (fen.charAt(i)) {
+                    case 'K' -> ROQUE_BRANCO_CURTO;
+                    case 'Q' -> ROQUE_BRANCO_LONGO;
+                    case 'k' -> ROQUE_PRETO_CURTO;
+                    case 'q' -> ROQUE_PRETO_LONGO;
+                    default -> throw new IllegalArgumentException("FEN inválido! (Direito de roque inválido)");
+                };
+            }
+            roque &= deduzirRoque(); // Descarta direitos sem o rei e a torre nas casas iniciais.
+        }
+
+        // 4. En passant.
+        i = pularEspacos(fen, i);
+        if (i >= tamanho) {
+            return i;
+        }
+        if (fen.charAt(i) == '-') {
+            i++;
+        } else {
+            if (i + 1 >= tamanho) {
+                throw new IllegalArgumentException("FEN inválido! (Casa de en passant inválida)");
+            }
+            char c = fen.charAt(i);
+            char f = fen.charAt(i + 1);
+            if (c < 'a' || c > 'h' || f != ((vez == BRANCO) ? '6' : '3')) { // Atrás do peão que acabou de andar.
+                throw new IllegalArgumentException("FEN inválido! (Casa de en passant inválida)");
+            }
+            enPassant = Lance.casa(c - 'a', f - '1');
+            i += 2;
+        }
+
+        // 5 e 6. Relógios de meio-lances e número do lance (opcionais).
+        int fimCampos = i;
+        i = pularEspacos(fen, i);
+        if (i < tamanho && isDigito(fen.charAt(i))) {
+            int valor = 0;
+            for (; i < tamanho && isDigito(fen.charAt(i)); i++) {
+                valor = Math.min(valor * 10 + (fen.charAt(i) - '0'), LIMITE_CONTADOR); // Satura em vez de estourar.
+            }
+            meioLances = valor;
+            fimCampos = i;
+
+            i = pularEspacos(fen, i);
+            if (i < tamanho && isDigito(fen.charAt(i))) {
+                valor = 0;
+                for (; i < tamanho && isDigito(fen.charAt(i)); i++) {
+                    valor = Math.min(valor * 10 + (fen.charAt(i) - '0'), LIMITE_CONTADOR);
+                }
+                numeroLance = Math.max(1, valor);
+                fimCampos = i;
+            }
+        }
+        return fimCampos;
+    }
+
+    // Recusa o que a geração de lances não sabe tratar: sem exatamente um rei de cada cor, com peão na primeira ou
+    // na oitava fileira, ou com o rei de quem não tem a vez em xeque (o próximo lance o capturaria).
+    private void validar() {
+        int reisBrancos = 0;
+        int reisPretos = 0;
+        for (int casa = 0; casa < 64; casa++) {
+            int peca = casas[casa];
+            if (peca == VAZIO) {
+                continue;
+            }
+            if (tipo(peca) == REI) {
+                if (cor(peca) == BRANCO) {
+                    reisBrancos++;
+                } else {
+                    reisPretos++;
+                }
+            } else if (tipo(peca) == PEAO && (casa < 8 || casa >= 56)) {
+                throw new IllegalArgumentException("FEN inválido! (Peão na primeira ou na oitava fileira)");
+            }
+        }
+        if (reisBrancos != 1 || reisPretos != 1) {
+            throw new IllegalArgumentException("FEN inválido! (Cada lado precisa de exatamente um rei)");
+        }
+        if (casaAtacada(reis[vez ^ 1], vez)) {
+            throw new IllegalArgumentException("FEN inválido! (O lado que não tem a vez está em xeque)");
+        }
+    }
+
+    private static int pularEspacos(CharSequence texto, int i) {
+        while (i < texto.length() && texto.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigito(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // Direitos possíveis pela disposição: rei e torre da mesma cor nas casas iniciais.
+    private int deduzirRoque() {
+        int direitos = 0;
+        int reiBranco = criarPeca(REI, BRANCO);
+        int torreBranca = criarPeca(TORRE, BRANCO);
+        int reiPreto = criarPeca(REI, PRETO);
+        int torrePreta = criarPeca(TORRE, PRETO);
+
+        if (casas[4] == reiBranco) {
+            if (casas[7] == torreBranca) direitos |= ROQUE_BRANCO_CURTO;
+            if (casas[0] == torreBranca) direitos |= ROQUE_BRANCO_LONGO;
+        }
+        if (casas[60] == reiPreto) {
+            if (casas[63] == torrePreta) direitos |= ROQUE_PRETO_CURTO;
+            if (casas[56] == torrePreta) direitos |= ROQUE_PRETO_LONGO;
+        }
+        return direitos;
+    }
+
+    public String toFEN() {
+        return appendFEN(new StringBuilder(90)).toString();
+    }
+
+    /**
+     * Escreve a FEN desta posição no final de {@code destino}, para quem quer reaproveitar o mesmo buffer.
+     */
+    public StringBuilder appendFEN(StringBuilder destino) {
+        for (int fileira = 7; fileira >= 0; fileira--) {
+            int vazias = 0;
+            for (int coluna = 0; coluna < 8; coluna++) {
+                int peca = casas[fileira * 8 + coluna];
+                if (peca == VAZIO) {
+                    vazias++;
+                    continue;
+                }
+                if (vazias > 0) {
+                    destino.append((char) ('0' + vazias));
+                    vazias = 0;
+                }
+                destino.append(CHAR_POR_CODIGO[peca]);
+            }
+            if (vazias > 0) {
+                destino.append((char) ('0' + vazias));
+            }
+            if (fileira > 0) {
+                destino.append('/');
+            }
+        }
+
+        destino.append(vez == BRANCO ? " w " : " b ");
+
+        if (roque == 0) {
+            destino.append('-');
+        } else {
+            if ((roque & ROQUE_BRANCO_CURTO) != 0) destino.append('K');
+            if ((roque & ROQUE_BRANCO_LONGO) != 0) destino.append('Q');
+            if ((roque & ROQUE_PRETO_CURTO) != 0) destino.append('k');
+            if ((roque & ROQUE_PRETO_LONGO) != 0) destino.append('q');
+        }
+
+        destino.append(' ');
+        if (enPassant == SEM_EN_PASSANT) {
+            destino.append('-');
+        } else {
+            destino.append((char) ('a' + Lance.coluna(enPassant))).append((char) ('1' + Lance.fileira(enPassant)));
+        }
+
+        return destino.append(' ').append(meioLances).append(' ').append(numeroLance);
+    }
+    //endregion
+
+    //region instantâneo
+    /**
+     * Bytes que {@link #escreverInstantaneo} vai ocupar: 46 mais 8 por posição que ainda conta para repetição.
+     */
+    public int tamanhoInstantaneo() {
+        return 46 + 8 * plysRepeticao();
+    }
+
+    /**
+     * Grava a posição num formato binário compacto: casas a 4 bits, vez, roque, en passant, os dois relógios,
+     * o número de lances feitos, o último lance e os hashes desde o último lance irreversível, que é tudo o que
+     * a regra de repetição ainda consulta. O resto da pilha de lances não é gravado.
+     */
+    public void escreverInstantaneo(ByteBuffer destino) {
+        for (int casa = 0; casa < 64; casa += 2) {
+            destino.put((byte) (casas[casa] | (casas[casa + 1] << 4)));
+        }
+        int historico = plysRepeticao();
+        destino.put((byte) (vez | (roque << 1)))
+                .put((byte) (enPassant + 1))
+                .putShort((short) Math.min(meioLances, 0xFFFF)) // Acima de 100 o valor exato não muda a regra.
+                .putShort((short) numeroLance)
+                .putInt(getPly())
+                .putShort((short) getUltimoLance())
+                .putShort((short) historico);
+        for (int i = ply - historico; i < ply; i++) {
+            destino.putLong(pilhaHash[i]);
+        }
+    }
+
+    /**
+     * Lê um instantâneo gravado por {@link #escreverInstantaneo}, sobrescrevendo esta posição. Depois dele,
+     * {@link #getPly()}, {@link #getUltimoLance()} e a detecção de repetição continuam de onde estavam, mas os
+     * lances anteriores ao instantâneo não podem ser desfeitos: {@link #desfazerLance()} os recusa.
+     */
+    public void lerInstantaneo(ByteBuffer origem) {
+        for (int casa = 0; casa < 64; casa += 2) {
+            int par = origem.get();
+            casas[casa] = (byte) (par & 0xF);
+            casas[casa + 1] = (byte) ((par >>> 4) & 0xF);
+        }
+        int estado = origem.get();
+        vez = estado & 1;
+        roque = (estado >>> 1) & 0xF;
+        enPassant = origem.get() - 1;
+        meioLances = origem.getShort() & 0xFFFF;
+        numeroLance = origem.getShort() & 0xFFFF;
+        int plyTotal = origem.getInt();
+        int ultimoLance = origem.getShort() & 0xFFFF;
+        int historico = origem.getShort() & 0xFFFF;
+        atualizarDerivados();
+
+        if (historico > pilhaHash.length) {
+            crescerPilha(historico);
+        }
+        for (int i = 0; i < historico; i++) {
+            pilhaHash[i] = origem.getLong();
+            pilhaDesfazer[i] = Lance.NENHUM;
+        }
+        if (historico > 0) {
+            pilhaDesfazer[historico - 1] = ultimoLance;
+        }
+        ply = historico;
+        plyAnterior = plyTotal - historico;
+        pisoDesfazer = historico;
+    }
+
+    // Plies da pilha que a repetição ainda pode consultar, e ao menos o último, para guardar o último lance.
+    private int plysRepeticao() {
+        return Math.min(ply, Math.max(meioLances, 1));
+    }
+    //endregion
+
+    //region cópia
+    /**
+     * Copia esta posição para {@code destino}, sobrescrevendo-a: só arrays e campos primitivos, sem alocar nada
+     * (a não ser que a pilha do destino precise crescer). Serve para dar a cada thread de uma busca ou perft
+     * paralelo a sua própria posição.
+     * <p>
+     * Da pilha vai só o que a regra de repetição ainda consulta, como no {@link #escreverInstantaneo instantâneo}:
+     * o destino detecta repetições e desfaz esses lances, mas não os anteriores ao último lance irreversível.
+     */
+    public void copiarPara(Posicao destino) {
+        System.arraycopy(casas, 0, destino.casas, 0, 64);
+        destino.reis[BRANCO] = reis[BRANCO];
+        destino.reis[PRETO] = reis[PRETO];
+        destino.ocupadas[BRANCO] = ocupadas[BRANCO];
+        destino.ocupadas[PRETO] = ocupadas[PRETO];
+        destino.peoes[BRANCO] = peoes[BRANCO];
+        destino.peoes[PRETO] = peoes[PRETO];
+        destino.vez = vez;
+        destino.roque = roque;
+        destino.enPassant = enPassant;
+        destino.meioLances = meioLances;
+        destino.numeroLance = numeroLance;
+        destino.hash = hash;
+        destino.material = material;
+
+        int historico = plysRepeticao();
+        if (historico > destino.pilhaHash.length) {
+            destino.crescerPilha(Math.max(historico, CAPACIDADE_INICIAL_PILHA));
+        }
+        System.arraycopy(pilhaDesfazer, ply - historico, destino.pilhaDesfazer, 0, historico);
+        System.arraycopy(pilhaHash, ply - historico, destino.pilhaHash, 0, historico);
+        destino.ply = historico;
+        destino.plyAnterior = plyAnterior + ply - historico;
+        destino.pisoDesfazer = Math.max(0, pisoDesfazer - (ply - historico));
+    }
+
+    /**
+     * Uma posição nova, independente desta, com o mesmo estado (ver {@link #copiarPara}).
+     */
+    public Posicao copiar() {
+        Posicao copia = new Posicao();
+        copiarPara(copia);
+        return copia;
+    }
+    //endregion
+
+    @Override
+    public String toString() {
+        return toFEN();
+    }
+}
@@ -0,0 +1,86 @@
+package Tabuleiro;
+
+/**
+ * Retrato imutável da posição do {@link Tabuleiro}, publicado pela thread do jogo depois de cada lance.
+ * <p>
+ * Outras threads (a GUI, espectadores, análise) leem o retrato mais recente com {@link Tabuleiro#getRetrato()} sem
+ * trava nenhuma: ele nunca muda depois de criado, e a referência é volatile. Para analisar a posição,
+ * {@link #paraPosicao()} devolve uma {@link Posicao} nova, só de quem chamou.
+ */
+public final class RetratoPosicao {
+    private final byte[] casas = new byte[64]; // Mesma codificação da Posicao: tipo | cor << 3, ou VAZIO.
+    private final int vez;
+    private final int roque;
+    private final int enPassant;
+    private final int meioLances;
+    private final int numeroLance;
+    private final long hash;
+    private final String fen;
+
+    RetratoPosicao(Posicao posicao) {
+        for (int casa = 0; casa < 64; casa++) {
+            casas[casa] = (byte) posicao.getPeca(casa);
+        }
+        vez = posicao.getVez();
+        roque = posicao.getRoque();
+        enPassant = posicao.getEnPassant();
+        meioLances = posicao.getMeioLances();
+        numeroLance = posicao.getNumeroLance();
+        hash = posicao.getHash();
+        fen = posicao.toFEN();
+    }
+
+    /**
+     * Código da peça na casa (0 a 63), como em {@link Posicao#getPeca}.
+     */
+    public int getPeca(int casa) {
+        return casas[casa];
+    }
+
+    public int getPeca(int coluna, int fileira) {
+        return casas[Lance.casa(coluna, fileira)];
+    }
+
+    public int getVez() {
+        return vez;
+    }
+
+    public int getRoque() {
+        return roque;
+    }
+
+    public int getEnPassant() {
+        return enPassant;
+    }
+
+    public int getMeioLances() {
+        return meioLances;
+    }
+
+    public int getNumeroLance() {
+        return numeroLance;
+    }
+
+    /**
+     * Hash Zobrist, igual ao de {@link Tabuleiro#getHash()} no momento do retrato.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Uma {@link Posicao} nova com o conteúdo do retrato.
+     */
+    public Posicao paraPosicao() {
+        return new Posicao(fen);
+    }
+
+    public String toFEN() {
+        return fen;
+    }
+
+    @Override
+    public String toString() {
+        return fen;
+    }
+}
@@ -0,0 +1,68 @@
+package Tabuleiro;
+
+/**
+ * Cache do perft: (hash, profundidade) -> número de folhas. Dois arrays de long, como a tabela de transposição do
+ * motor, e substituição que mantém a entrada mais profunda de cada índice.
+ * <p>
+ * Cada entrada guarda o hash completo e um long com as folhas (56 bits) e a profundidade (8 bits); o resultado da
+ * contagem só depende das peças, da vez, do roque e do en passant, que é o que o hash Zobrist cobre.
+ * Não é segura para várias threads.
+ */
+final class TabelaPerft {
+    private static final int BYTES_POR_ENTRADA = 16;
+    private static final long MAXIMO_ENTRADAS = 1L << 30; // Maior potência de dois que cabe num array.
+
+    private final long[] chaves;
+    private final long[] dados;
+    private final int mascara;
+    private long acertos;
+
+    TabelaPerft(int megabytes) {
+        if (megabytes <= 0) {
+            throw new IllegalArgumentException("Tamanho de tabela inválido: " + megabytes + " MB");
+        }
+        int entradas = (int) Long.highestOneBit(Math.min((long) megabytes * (1024 * 1024 / BYTES_POR_ENTRADA),
+                MAXIMO_ENTRADAS));
+        this.chaves = new long[entradas];
+        this.dados = new long[entradas];
+        this.mascara = entradas - 1;
+    }
+
+    /**
+     * As folhas guardadas para a posição nessa profundidade, ou -1 se não há.
+     */
+    long consultar(long hash, int profundidade) {
+        int indice = indice(hash, profundidade);
+        long dado = dados[indice];
+        if (chaves[indice] == hash && (int) (dado & 0xFF) == profundidade) {
+            acertos++;
+            return dado >>> 8;
+        }
+        return -1;
+    }
+
+    void gravar(long hash, int profundidade, long folhas) {
+        int indice = indice(hash, profundidade);
+        if ((int) (dados[indice] & 0xFF) > profundidade) {
+            return;
+        }
+        chaves[indice] = hash;
+        dados[indice] = (folhas << 8) | profundidade;
+    }
+
+    /**
+     * O tamanho real da tabela, depois de arredondado para uma potência de dois.
+     */
+    long getMegabytes() {
+        return (long) chaves.length * BYTES_POR_ENTRADA / (1024 * 1024);
+    }
+
+    long getAcertos() {
+        return acertos;
+    }
+
+    // A profundidade entra no índice para que a mesma posição em profundidades diferentes não dispute a entrada.
+    private int indice(long hash, int profundidade) {
+        return ((int) hash ^ profundidade) & mascara;
+    }
+}
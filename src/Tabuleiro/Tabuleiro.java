@@ -3,6 +3,11 @@ package Tabuleiro;
 import pecas.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Scanner;
 
 public class Tabuleiro {
@@ -33,10 +38,7 @@ public class Tabuleiro {
     //endregion
 
     private static Casa[][] casas = new Casa[COLUNAS][FILEIRAS];
-    private static ArrayList<Peca> pecasNoTabuleiro = new ArrayList<>(32);
-
-    private static Rei reiBranco;
-    private static Rei reiPreto;
+    private static final ListaPecas pecas = new ListaPecas();
 
     public static ArrayList<Casa> casasLegaisPecasBrancas = new ArrayList<>(64);
     public static ArrayList<Casa> casasLegaisPecasPretas = new ArrayList<>(64);
@@ -47,6 +49,26 @@ public class Tabuleiro {
     public static final String FEN_POS_INICIAL = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR";
 
     private static int jogadas = 0;
+    private static int meioLances = 0; // Meio-lances desde a última captura ou lance de peão.
+    // Estado que não se lê das peças, mantido a cada lance como na Posicao.
+    private static int direitosDeRoque = 0; // Zobrist.ROQUE_*
+    private static int casaEnPassant = Posicao.SEM_EN_PASSANT; // Casa atrás do peão que acabou de andar duas.
+    private static long chaveMaterial = 0; // Ver Material; atualizada em capturas e promoções.
+
+    // Hashes Zobrist de cada posição da partida, na ordem em que apareceram (o último é a posição atual).
+    private static long[] historicoHash = new long[256];
+    private static int tamanhoHistorico = 0;
+
+    private static OuvinteLance ouvinteLance; // null = ninguém escutando.
+
+    // Atualização incremental: o que cada peça contribuiu no último cálculo e as casas que mudaram desde então.
+    private static final IdentityHashMap<Peca, Contribuicao> contribuicoes = new IdentityHashMap<>(64);
+    private static long casasAlteradas = 0;
+    private static boolean estadoCalculado = false;
+    private static Contribuicao emCalculo; // Recebe os ataques registrados por Casa.setAtacked.
+
+    // Com -Dtabuleiro.verificarIncremental=true, toda atualização incremental é conferida com uma completa.
+    private static final boolean VERIFICAR_INCREMENTAL = Boolean.getBoolean("tabuleiro.verificarIncremental");
 
     public static final ArrayList<String> casasToString = new ArrayList<>(128);
 
@@ -158,6 +180,13 @@ public class Tabuleiro {
         return casas[coluna][fileira];
     }
 
+    /**
+     * A casa pelo índice de {@link Lance} ({@code fileira * 8 + coluna}).
+     */
+    public static Casa getCasa(int indice) {
+        return casas[Lance.coluna(indice)][Lance.fileira(indice)];
+    }
+
     public static void criarCasas() {
         for (int idColuna = 0; idColuna < COLUNAS; idColuna++) {
             for (int idFileira = 0; idFileira < FILEIRAS; idFileira++) {
@@ -397,108 +426,166 @@ public class Tabuleiro {
             new Rei(coluna, fileira, cor);
         }
 
+        chaveMaterial = 0;
+        for (Peca peca : pecas) {
+            chaveMaterial += unidadeMaterial(peca);
+        }
     }
 
     public static void limpar() {
-        pecasNoTabuleiro.clear(); // Limpa a lista de peças para evitar fantasmas
+        pecas.limpar(); // Limpa a lista de peças para evitar fantasmas
+        chaveMaterial = 0;
+        direitosDeRoque = 0;
+        casaEnPassant = Posicao.SEM_EN_PASSANT;
+        estadoCalculado = false;
         for (int idColuna = 0; idColuna < COLUNAS; idColuna++) {
             for (int idFileira = 0; idFileira < FILEIRAS; idFileira++) {
                 getCasa(idColuna, idFileira).esvaziar();
             }
         }
+        publicarRetrato();
     }
 
+    /**
+     * Lê uma FEN, completa (seis campos) ou só com a disposição das peças.
+     * Sem os demais campos, a vez é das brancas e o roque é deduzido das casas iniciais.
+     */
     public static void lerFEN(String FEN) {
-        lerFEN(FEN, BRANCO);
+        if (!lerPosicaoFEN(FEN)) {
+            return;
+        }
+        carregarPosicao(posicaoFEN);
     }
 
+    /**
+     * Lê a FEN mas usa {@code corDaVez} no lugar do campo de vez (usado pela GUI, que escolhe a vez à parte).
+     */
     public static void lerFEN(String FEN, int corDaVez) {
-        // Contar quantas casas foram passadas
-        int contCasas = 0;
-
-        for (int i = 0, idColuna = COLUNA_A, idFileira = OITAVA_FILEIRA; i < FEN.length(); i++) {
-            switch (FEN.charAt(i)) {
-                case 'r' -> new Torre(idColuna, idFileira, PRETO);
-                case 'n' -> new Cavalo(idColuna, idFileira, PRETO);
-                case 'b' -> new Bispo(idColuna, idFileira, PRETO);
-                case 'q' -> new Rainha(idColuna, idFileira, PRETO);
-                case 'k' -> new Rei(idColuna, idFileira, PRETO);
-                case 'p' -> new Peao(idColuna, idFileira, PRETO);
-                case 'R' -> new Torre(idColuna, idFileira, BRANCO);
-                case 'N' -> new Cavalo(idColuna, idFileira, BRANCO);
-                case 'B' -> new Bispo(idColuna, idFileira, BRANCO);
-                case 'Q' -> new Rainha(idColuna, idFileira, BRANCO);
-                case 'K' -> new Rei(idColuna, idFileira, BRANCO);
-                case 'P' -> new Peao(idColuna, idFileira, BRANCO);
-                case '/' -> {
-                    try {
-                        idFileira--; // Pula para a fileira de baixo.
-                        getCasa(0, idFileira); // Tenta acessar a casa para ver se ela está dentro dos limites do array.
-                                               // Caso contrário, entra no catch.
-                    } catch (ArrayIndexOutOfBoundsException e) {
-                        System.out.println("FEN digitado inválido! (Mais de 8 fileiras lidas!)");
-                        limpar();
-                        return;
-                    }
-                    idColuna = COLUNA_A; // Recomeça da Coluna A.
-                    continue;
-                }
-                default -> {
-                    try {
-                        int pulos = Integer.parseInt(String.valueOf(FEN.charAt(i))); // Tenta converter o char para
-                                                                                     // inteiro. Caso não consiga, entra
-                                                                                     // no catch.
-
-                        try {
-                            idColuna += pulos;
-                            contCasas += pulos;
-                            getCasa(idColuna - 1, 0); // Tenta acessar a casa ANTERIOR para ver se ela está dentro dos
-                                                      // limites do array (Já que a Coluna H também pode ser pulada).
-                                                      // Caso contrário, entra no catch.
-                            continue;
-                        } catch (ArrayIndexOutOfBoundsException e) {
-                            System.out.println("FEN digitado inválido! (Mais de 8 colunas lidas!)");
-                            limpar();
-                            return;
-                        }
-                    } catch (NumberFormatException e) {
-                        System.out.println("FEN digitado inválido! (Caracter inválido!)"); // Foi passado um caracter
-                                                                                           // diferente de um número e
-                                                                                           // dos listados acima.
-                        limpar();
-                        return;
-                    }
-                }
-            }
-
-            try {
-                if (i != FEN.length() - 1) { // Se não for a última iteração,
-                    if (FEN.charAt(i + 1) != '/') { // Verificar se o próximo char é uma quebra de fileira.
-                        idColuna++;
-                        getCasa(idColuna, 0); // Tenta acessar a casa para ver se ela está dentro dos limites do array.
-                                              // Caso contrário, entra no catch.
-                    }
-                }
-                contCasas++;
-            } catch (ArrayIndexOutOfBoundsException e) {
-                System.out.println("FEN digitado inválido! (Mais de 8 colunas lidas!)");
-                limpar();
+        String texto = FEN.trim();
+        if (texto.indexOf(' ') < 0) { // Só a disposição: a vez entra no parse, que valida a posição com ela.
+            texto += (corDaVez == PRETO) ? " b" : " w";
+        }
+        if (!lerPosicaoFEN(texto)) {
+            return;
+        }
+        if (posicaoFEN.getVez() != corDaVez) {
+            posicaoFEN.setVez(corDaVez);
+            posicaoFEN.setEnPassant(Posicao.SEM_EN_PASSANT); // O en passant da FEN não vale para a outra cor.
+            if (!lerPosicaoFEN(posicaoFEN.toFEN())) { // Confere de novo, agora com a outra cor na vez.
                 return;
             }
         }
-        if (contCasas < 64) {
-            System.out.println("FEN digitado inválido! (Menos de 64 casas lidas!)");
+        carregarPosicao(posicaoFEN);
+    }
+
+    // Posição reaproveitada entre leituras, para o parse não alocar a cada FEN.
+    private static final Posicao posicaoFEN = new Posicao();
+
+    private static boolean lerPosicaoFEN(String FEN) {
+        try {
+            posicaoFEN.lerFEN(FEN);
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
             limpar();
+            return false;
         }
-        
-        // Set the turn based on the color argument
-        // If it's Black's turn, we set jogadas to 1 (or any odd number).
-        // If it's White's turn, we set jogadas to 0 (or any even number).
-        if (corDaVez == PRETO) {
-            setJogadas(1);
-        } else {
-            setJogadas(0);
+    }
+
+    /**
+     * Cria as peças da posição no tabuleiro e ajusta vez, roque, en passant e relógios.
+     * Reis e torres sem direito de roque são marcados como já movidos.
+     */
+    public static void carregarPosicao(Posicao posicao) {
+        estadoCalculado = false; // Peças novas: a próxima atualização é completa.
+        for (int casa = 0; casa < 64; casa++) {
+            int codigo = posicao.getPeca(casa);
+            if (codigo == Posicao.VAZIO) {
+                continue;
+            }
+            int idColuna = Lance.coluna(casa);
+            int idFileira = Lance.fileira(casa);
+            int cor = Posicao.cor(codigo);
+
+            Peca peca = switch (Posicao.tipo(codigo)) {
+                case Peca.PEAO -> new Peao(idColuna, idFileira, cor);
+                case Peca.CAVALO -> new Cavalo(idColuna, idFileira, cor);
+                case Peca.BISPO -> new Bispo(idColuna, idFileira, cor);
+                case Peca.TORRE -> new Torre(idColuna, idFileira, cor);
+                case Peca.RAINHA -> new Rainha(idColuna, idFileira, cor);
+                default -> new Rei(idColuna, idFileira, cor);
+            };
+            peca.setJaMoveu(!podeRocarCom(peca, posicao.getRoque()));
+        }
+
+        setJogadas(2 * (posicao.getNumeroLance() - 1) + posicao.getVez());
+        meioLances = posicao.getMeioLances();
+        chaveMaterial = posicao.getMaterial();
+        direitosDeRoque = posicao.getRoque();
+        casaEnPassant = posicao.getEnPassant();
+        reiniciarHistorico();
+        publicarRetrato();
+    }
+
+    // Reis e torres só contam como "não movidos" se ainda existir um direito de roque que dependa deles.
+    private static boolean podeRocarCom(Peca peca, int roque) {
+        int fileiraInicial = (peca.getCor() == BRANCO) ? PRIMEIRA_FILEIRA : OITAVA_FILEIRA;
+        int curto = (peca.getCor() == BRANCO) ? Zobrist.ROQUE_BRANCO_CURTO : Zobrist.ROQUE_PRETO_CURTO;
+        int longo = (peca.getCor() == BRANCO) ? Zobrist.ROQUE_BRANCO_LONGO : Zobrist.ROQUE_PRETO_LONGO;
+
+        if (peca instanceof Rei) {
+            return peca.getFileira() == fileiraInicial && peca.getColuna() == COLUNA_E
+                    && (roque & (curto | longo)) != 0;
+        }
+        if (peca instanceof Torre) {
+            return peca.getFileira() == fileiraInicial
+                    && ((peca.getColuna() == COLUNA_H && (roque & curto) != 0)
+                    || (peca.getColuna() == COLUNA_A && (roque & longo) != 0));
+        }
+        return true; // Só reis e torres usam jaMoveu.
+    }
+
+    /**
+     * Copia o estado do tabuleiro para uma {@link Posicao} primitiva.
+     */
+    public static void paraPosicao(Posicao destino) {
+        destino.limpar();
+        for (Peca peca : pecas) {
+            destino.colocar(Lance.casa(peca.getColuna(), peca.getFileira()),
+                    Posicao.criarPeca(peca.getCodigo(), peca.getCor()));
         }
+        destino.setVez((jogadas % 2 == 0) ? BRANCO : PRETO);
+        destino.setRoque(direitosDeRoque);
+        destino.setEnPassant(casaEnPassant);
+        destino.setMeioLances(meioLances);
+        destino.setNumeroLance(jogadas / 2 + 1);
+        destino.atualizarDerivados();
+    }
+
+    // Retrato da última posição publicada. Só a thread do jogo escreve; as outras só leem a referência.
+    private static volatile RetratoPosicao retrato = new RetratoPosicao(new Posicao());
+    private static final Posicao posicaoRetrato = new Posicao();
+
+    /**
+     * O retrato imutável mais recente, publicado depois de cada {@link #moverPeca}, {@link #carregarPosicao} e
+     * {@link #limpar}. Pode ser lido de qualquer thread sem travar a do jogo.
+     */
+    public static RetratoPosicao getRetrato() {
+        return retrato;
+    }
+
+    private static void publicarRetrato() {
+        paraPosicao(posicaoRetrato);
+        retrato = new RetratoPosicao(posicaoRetrato);
+    }
+
+    /**
+     * FEN completa (seis campos) da posição atual.
+     */
+    public static String toFEN() {
+        Posicao posicao = new Posicao();
+        paraPosicao(posicao);
+        return posicao.toFEN();
     }
 
     public static void analisarCasasLegais(Peca peca) {
@@ -514,16 +601,14 @@ public class Tabuleiro {
     }
 
     public static void refreshCasasLegais() {
-        for (Peca p : pecasNoTabuleiro) {
-            p.setCasasLegais();
-        }
+        recalcular(true);
     }
 
     public static void uniteCasasLegais() {
         casasLegaisPecasBrancas.clear();
         casasLegaisPecasPretas.clear();
 
-        for (Peca p : pecasNoTabuleiro) {
+        for (Peca p : pecas) {
             if (p.getCor() == BRANCO) {
                 casasLegaisPecasBrancas.addAll(p.getCasasLegais());
             } else {
@@ -533,7 +618,7 @@ public class Tabuleiro {
     }
 
     public static void refreshFiltroCasasLegais() {
-        for (Peca p : pecasNoTabuleiro) {
+        for (Peca p : pecas) {
             p.filtrarCasasLegais();
         }
     }
@@ -554,13 +639,13 @@ public class Tabuleiro {
     }
 
     public static void refreshIsInCheck() {
-        reiBranco.isInCheck();
-        reiPreto.isInCheck();
+        getReiBranco().isInCheck();
+        getReiPreto().isInCheck();
     }
 
     public static void refreshIsCheckmated() {
-        reiBranco.isCheckmated();
-        reiPreto.isCheckmated();
+        getReiBranco().isCheckmated();
+        getReiPreto().isCheckmated();
     }
 
     public static void clearIsAtacked() {
@@ -572,9 +657,322 @@ public class Tabuleiro {
     }
 
     public static void clearPecasAtacantes() {
-        reiBranco.setPecasAtacantes(0);
-        reiPreto.setPecasAtacantes(0);
+        getReiBranco().setPecasAtacantes(0);
+        getReiPreto().setPecasAtacantes(0);
+    }
+
+    //region atualização do estado
+    /**
+     * Recalcula tudo: casas legais de todas as peças, casas atacadas, xeques, bloqueios e cravadas.
+     */
+    public static void atualizarEstado() {
+        clearCasasLegais();
+        clearCasasDeBloqueio();
+        clearPecasAtacantes();
+        clearIsAtacked();
+
+        refreshCasasLegais();
+        refreshIsInCheck();
+        refreshFiltroCasasLegais();
+        refreshCravaPecas();
+        uniteCasasLegais();
+    }
+
+    /**
+     * Mesmo resultado de {@link #atualizarEstado()}, mas só roda {@code setCasasLegais()} nas peças que o último lance
+     * pode ter afetado: as que se mexeram, as que olhavam para alguma casa que mudou (origem, destino, peão
+     * capturado en passant, torre do roque), os reis e os peões na fileira de en passant. As demais repetem a
+     * contribuição guardada do cálculo anterior. Filtro de xeque, cravadas e a união das casas legais, que são
+     * baratos, rodam sempre por completo.
+     * <p>
+     * Sem um cálculo anterior (ou depois de {@link #limpar()}), faz a atualização completa.
+     */
+    public static void atualizarEstadoIncremental() {
+        if (!estadoCalculado) {
+            atualizarEstado();
+            return;
+        }
+        clearCasasLegais();
+        clearCasasDeBloqueio();
+        clearPecasAtacantes();
+
+        recalcular(false);
+        refreshIsInCheck();
+        refreshFiltroCasasLegais();
+        refreshCravaPecas();
+        uniteCasasLegais();
+
+        if (VERIFICAR_INCREMENTAL) {
+            verificarIncremental();
+        }
+    }
+
+    // Calcula as casas legais brutas. Os reis vão por último: o roque consulta as casas legais das peças inimigas,
+    // que assim já estão todas calculadas.
+    private static void recalcular(boolean completo) {
+        long alteradas = casasAlteradas;
+        for (Contribuicao contribuicao : contribuicoes.values()) {
+            contribuicao.emUso = false;
+        }
+        for (int tipo = Peca.PEAO; tipo <= Peca.REI; tipo++) {
+            for (int cor = BRANCO; cor <= PRETO; cor++) {
+                for (int i = 0; i < pecas.quantidade(cor, tipo); i++) {
+                    processar(pecas.get(cor, tipo, i), completo, alteradas);
+                }
+            }
+        }
+        // Peças que saíram do tabuleiro (capturadas, promovidas) deixam de atacar.
+        Iterator<Contribuicao> iterador = contribuicoes.values().iterator();
+        while (iterador.hasNext()) {
+            Contribuicao contribuicao = iterador.next();
+            if (!contribuicao.emUso) {
+                if (!completo) {
+                    removerAtaques(contribuicao);
+                }
+                iterador.remove();
+            }
+        }
+        casasAlteradas = 0;
+        estadoCalculado = true;
+    }
+
+    private static void processar(Peca peca, boolean completo, long alteradas) {
+        Contribuicao contribuicao = contribuicoes.get(peca);
+        if (contribuicao == null) {
+            contribuicao = new Contribuicao();
+            contribuicoes.put(peca, contribuicao);
+            calcular(peca, contribuicao);
+        } else if (completo) {
+            calcular(peca, contribuicao);
+        } else if (precisaRecalcular(peca, contribuicao, alteradas)) {
+            removerAtaques(contribuicao);
+            calcular(peca, contribuicao);
+        } else {
+            reaplicar(peca, contribuicao);
+        }
+        contribuicao.emUso = true;
+    }
+
+    private static boolean precisaRecalcular(Peca peca, Contribuicao contribuicao, long alteradas) {
+        if (peca.getCodigo() == Peca.REI) {
+            return true; // Roque e casas atacadas em volta mudam com qualquer lance.
+        }
+        if ((alteradas & (contribuicao.lidas | (1L << peca.getCasa().getIndice()))) != 0) {
+            return true;
+        }
+        // O en passant só vale logo depois do avanço duplo, então depende do lance anterior e não só das casas.
+        int fileiraEnPassant = (peca.getCor() == BRANCO) ? QUINTA_FILEIRA : QUARTA_FILEIRA;
+        return peca.getCodigo() == Peca.PEAO && peca.getFileira() == fileiraEnPassant;
+    }
+
+    // Roda setCasasLegais() guardando o que ele deixou nas listas globais.
+    private static void calcular(Peca peca, Contribuicao contribuicao) {
+        contribuicao.limpar();
+        contribuicao.codigoAtaque = (peca.getCor() == BRANCO) ? Casa.BY_WHITE : Casa.BY_BLACK;
+        int bloqueioBrancas = casasDeBloqueioBrancas.size();
+        int bloqueioPretas = casasDeBloqueioPretas.size();
+        Rei reiBranco = getReiBranco();
+        Rei reiPreto = getReiPreto();
+        int atacantesBranco = (reiBranco != null) ? reiBranco.getPecasAtacantes() : 0;
+        int atacantesPreto = (reiPreto != null) ? reiPreto.getPecasAtacantes() : 0;
+
+        emCalculo = contribuicao;
+        try {
+            peca.setCasasLegais();
+        } finally {
+            emCalculo = null;
+        }
+
+        contribuicao.brutas.addAll(peca.getCasasLegais());
+        contribuicao.bloqueioBrancas.addAll(casasDeBloqueioBrancas.subList(bloqueioBrancas,
+                casasDeBloqueioBrancas.size()));
+        contribuicao.bloqueioPretas.addAll(casasDeBloqueioPretas.subList(bloqueioPretas, casasDeBloqueioPretas.size()));
+        contribuicao.xequesBrancas = (reiBranco != null) ? reiBranco.getPecasAtacantes() - atacantesBranco : 0;
+        contribuicao.xequesPretas = (reiPreto != null) ? reiPreto.getPecasAtacantes() - atacantesPreto : 0;
+        if (peca.getCodigo() == Peca.PEAO) {
+            // O avanço do peão consulta as casas à frente, que não são marcadas como atacadas.
+            int sentido = (peca.getCor() == BRANCO) ? 1 : -1;
+            for (int passo = 1; passo <= 2; passo++) {
+                int fileira = peca.getFileira() + passo * sentido;
+                if (fileira >= PRIMEIRA_FILEIRA && fileira <= OITAVA_FILEIRA) {
+                    contribuicao.lidas |= 1L << Lance.casa(peca.getColuna(), fileira);
+                }
+            }
+        }
+    }
+
+    // Repete nas listas globais o que setCasasLegais() faria, sem percorrer o tabuleiro.
+    private static void reaplicar(Peca peca, Contribuicao contribuicao) {
+        ArrayList<Casa> legais = peca.getCasasLegais();
+        legais.clear();
+        legais.addAll(contribuicao.brutas);
+        ((peca.getCor() == BRANCO) ? casasLegaisPecasBrancas : casasLegaisPecasPretas).addAll(contribuicao.brutas);
+        casasDeBloqueioBrancas.addAll(contribuicao.bloqueioBrancas);
+        casasDeBloqueioPretas.addAll(contribuicao.bloqueioPretas);
+        for (int i = 0; i < contribuicao.xequesBrancas; i++) {
+            getReiBranco().setIsInCheck(true);
+            getReiBranco().incPecasAtacantes();
+        }
+        for (int i = 0; i < contribuicao.xequesPretas; i++) {
+            getReiPreto().setIsInCheck(true);
+            getReiPreto().incPecasAtacantes();
+        }
+    }
+
+    private static void removerAtaques(Contribuicao contribuicao) {
+        Integer codigo = contribuicao.codigoAtaque;
+        for (Casa casa : contribuicao.atacadas) {
+            casa.isAtacked().remove(codigo);
+        }
+    }
+
+    static void registrarAtaque(Casa casa) {
+        if (emCalculo != null) {
+            emCalculo.atacadas.add(casa);
+            emCalculo.lidas |= 1L << casa.getIndice();
+        }
+    }
+
+    static void marcarAlterada(Casa casa) {
+        casasAlteradas |= 1L << casa.getIndice();
+        consultaValida = false;
+    }
+
+    private static void verificarIncremental() {
+        String incremental = retratoEstado();
+        atualizarEstado();
+        String completo = retratoEstado();
+        if (!incremental.equals(completo)) {
+            throw new IllegalStateException("Atualização incremental divergiu da completa em " + toFEN()
+                    + "\nincremental: " + incremental + "\ncompleta:    " + completo);
+        }
+    }
+
+    // Tudo o que a atualização produz, num texto comparável. As listas de ataque de cada casa não têm ordem fixa.
+    private static String retratoEstado() {
+        StringBuilder retrato = new StringBuilder(2048);
+        for (Peca peca : pecas) {
+            retrato.append(peca.getTipo()).append(peca.getCasa().posString()).append(peca.estaCravada() ? "*" : "")
+                    .append(peca instanceof Peao && ((Peao) peca).getAlvoEnPassant() != null ? "ep" : "")
+                    .append(casasString(peca.getCasasLegais())).append(' ');
+        }
+        for (int indice = 0; indice < 64; indice++) {
+            ArrayList<Integer> ataques = getCasa(Lance.coluna(indice), Lance.fileira(indice)).isAtacked();
+            int brancas = 0;
+            for (int ataque : ataques) {
+                brancas += (ataque == Casa.BY_WHITE) ? 1 : 0;
+            }
+            retrato.append(brancas).append('/').append(ataques.size() - brancas).append(',');
+        }
+        retrato.append(" reis ").append(getReiBranco().getPecasAtacantes()).append(getReiBranco().isInCheck())
+                .append(getReiPreto().getPecasAtacantes()).append(getReiPreto().isInCheck())
+                .append(" legais ").append(casasString(casasLegaisPecasBrancas)).append(casasString(casasLegaisPecasPretas))
+                .append(" bloqueio ").append(casasString(casasDeBloqueioBrancas)).append(casasString(casasDeBloqueioPretas));
+        return retrato.toString();
+    }
+
+    private static String casasString(ArrayList<Casa> casas) {
+        StringBuilder texto = new StringBuilder("[");
+        for (Casa casa : casas) {
+            texto.append(casa.posString());
+        }
+        return texto.append(']').toString();
+    }
+    //endregion
+
+    //region casas legais sob demanda
+    // Cópia primitiva do tabuleiro para as consultas, refeita só quando a posição muda.
+    private static final Posicao posicaoConsulta = new Posicao();
+    private static final int[] lancesConsulta = new int[Posicao.MAX_LANCES];
+    private static final List<ArrayList<Casa>> legaisPorCasa = new ArrayList<>(64);
+    private static final List<List<Casa>> visoesLegaisPorCasa = new ArrayList<>(64);
+    private static boolean consultaValida = false; // Zerado a cada casa alterada (Casa.setPeca/esvaziar).
+    private static long hashConsulta;
+    private static long casasConsultadas; // Bit por casa de origem já calculada para hashConsulta.
+
+    static {
+        for (int i = 0; i < 64; i++) {
+            ArrayList<Casa> legais = new ArrayList<>(8);
+            legaisPorCasa.add(legais);
+            visoesLegaisPorCasa.add(Collections.unmodifiableList(legais));
+        }
+    }
+
+    /**
+     * Casas para onde a peça em (coluna, fileira) pode ir agora, calculadas só para ela e só na primeira
+     * consulta: as respostas ficam guardadas pelo hash da posição e pela casa, e qualquer casa alterada as
+     * invalida. Não depende de {@link #atualizarEstado()} ter rodado, então serve para mostrar a seleção sem
+     * recalcular as outras peças. Vazia se a casa está vazia ou a peça não é da vez.
+     */
+    public static List<Casa> casasLegais(int coluna, int fileira) {
+        atualizarConsulta();
+        int origem = Lance.casa(coluna, fileira);
+        ArrayList<Casa> legais = legaisPorCasa.get(origem);
+        if ((casasConsultadas & (1L << origem)) == 0) {
+            legais.clear();
+            if (temReiDaVez()) {
+                int total = posicaoConsulta.gerarLegaisDe(origem, lancesConsulta);
+                for (int i = 0; i < total; i++) {
+                    int destino = Lance.destino(lancesConsulta[i]);
+                    Casa casa = getCasa(Lance.coluna(destino), Lance.fileira(destino));
+                    if (!legais.contains(casa)) { // As quatro promoções vão para a mesma casa.
+                        legais.add(casa);
+                    }
+                }
+            }
+            casasConsultadas |= 1L << origem;
+        }
+        return visoesLegaisPorCasa.get(origem);
+    }
+
+    /**
+     * Se a peça em (colOrigem, filOrigem) pode ir para (colDestino, filDestino) agora. Testa só esse lance, com
+     * {@link Posicao#ehLegal}; um peão chegando à última fileira é testado como promoção a dama, já que a peça
+     * escolhida não muda a legalidade.
+     */
+    public static boolean ehLanceLegal(int colOrigem, int filOrigem, int colDestino, int filDestino) {
+        atualizarConsulta();
+        if (!temReiDaVez()) {
+            return false;
+        }
+        int origem = Lance.casa(colOrigem, filOrigem);
+        int destino = Lance.casa(colDestino, filDestino);
+        boolean promocao = Posicao.tipo(posicaoConsulta.getPeca(origem)) == Peca.PEAO
+                && (filDestino == PRIMEIRA_FILEIRA || filDestino == OITAVA_FILEIRA);
+        return posicaoConsulta.ehLegal(Lance.criar(origem, destino, promocao ? Peca.RAINHA : 0));
+    }
+
+    /**
+     * Se o lado da vez tem algum lance legal; para no primeiro que achar ({@link Posicao#temLanceLegal()}).
+     */
+    public static boolean temLanceLegal() {
+        atualizarConsulta();
+        return temReiDaVez() && posicaoConsulta.temLanceLegal();
+    }
+
+    /**
+     * Se o rei do lado da vez está em xeque, pela {@link Posicao}.
+     */
+    public static boolean emXeque() {
+        atualizarConsulta();
+        return temReiDaVez() && posicaoConsulta.emXeque();
+    }
+
+    // Refaz a cópia primitiva se a posição mudou desde a última consulta.
+    private static void atualizarConsulta() {
+        long hash = getHash();
+        if (!consultaValida || hash != hashConsulta) {
+            paraPosicao(posicaoConsulta);
+            hashConsulta = hash;
+            casasConsultadas = 0;
+            consultaValida = true;
+        }
+    }
+
+    private static boolean temReiDaVez() {
+        return posicaoConsulta.getCasaRei(posicaoConsulta.getVez()) >= 0; // Sem rei não há o que testar.
     }
+    //endregion
 
     public static void moverPeca(int colOrigem, int filOrigem, int colDestino, int filDestino) {
         moverPeca(colOrigem, filOrigem, colDestino, filDestino, true, ' ');
@@ -593,76 +991,44 @@ public class Tabuleiro {
         Peca peca = casaOrigem.getPeca();
         Peca pecaCasaDestino = casaDestino.getPeca();
 
-        boolean movimentoLegal = peca.getCasasLegais().contains(casaDestino);
+        // Mesma regra da seleção da GUI (casasLegais), mas só para este lance: as listas antigas
+        // (peca.getCasasLegais()) erram alguns lances com cravadas e xeques.
+        boolean movimentoLegal = ehLanceLegal(colOrigem, filOrigem, colDestino, filDestino);
         if (movimentoLegal) { // Se é um movimento legal...
 
-            // Lógica do Roque
-            if (peca instanceof Rei && !peca.jaMoveu() && Math.abs(colDestino - colOrigem) == 2) {
-                // É uma tentativa de roque
-
-                // Roque para Esquerda (Grande)
+            // Roque: já validado acima, só falta levar a torre.
+            if (peca.getCodigo() == Peca.REI && Math.abs(colDestino - colOrigem) == 2) {
                 if (colDestino == COLUNA_C) {
-                    if (((Rei) peca).canCastleToTheLeft()) {
-                        if (!casaDestino.isAtacked()
-                                .contains((peca.getCor() == BRANCO) ? Casa.BY_BLACK : Casa.BY_WHITE)) {
-                            // Move a torre
-                            if (peca.getCor() == BRANCO) {
-                                moverTorreNoRoque(COLUNA_A, PRIMEIRA_FILEIRA, COLUNA_D, PRIMEIRA_FILEIRA);
-                            } else {
-                                moverTorreNoRoque(COLUNA_A, OITAVA_FILEIRA, COLUNA_D, OITAVA_FILEIRA);
-                            }
-                        } else {
-                            System.out.println("Você não pode efetuar o roque, pois isso deixaria seu rei em cheque.");
-                            return; // Cancela o movimento
-                        }
-                    }
-                }
-                // Roque para Direita (Pequeno)
-                else if (colDestino == COLUNA_G) {
-                    if (((Rei) peca).canCastleToTheRight()) {
-                        ArrayList<Integer> atacada = casaDestino.isAtacked();
-                        if (!atacada.contains((peca.getCor() == BRANCO) ? Casa.BY_BLACK : Casa.BY_WHITE)) {
-                            // Move a torre
-                            if (peca.getCor() == BRANCO) {
-                                moverTorreNoRoque(COLUNA_H, PRIMEIRA_FILEIRA, COLUNA_F, PRIMEIRA_FILEIRA);
-                            } else {
-                                moverTorreNoRoque(COLUNA_H, OITAVA_FILEIRA, COLUNA_F, OITAVA_FILEIRA);
-                            }
-                        } else {
-                            System.out.println("Você não pode efetuar o roque, pois isso deixaria seu rei em cheque.");
-                            return; // Cancela o movimento
-                        }
-                    }
+                    moverTorreNoRoque(COLUNA_A, filOrigem, COLUNA_D, filOrigem);
+                } else {
+                    moverTorreNoRoque(COLUNA_H, filOrigem, COLUNA_F, filOrigem);
                 }
             }
 
+            if (pecaCasaDestino != null) {
+                chaveMaterial -= unidadeMaterial(pecaCasaDestino);
+            }
+            pecas.remover(pecaCasaDestino);
+            pecas.mover(casaOrigem.getIndice(), casaDestino.getIndice());
+
             peca.setJaMoveu(true);
             peca.setPos(colDestino, filDestino); // Mova a peça para a casa desejada,
             peca.setCasa(casaDestino); // Guarde a casa nova na instância da peça,
 
-            pecasNoTabuleiro.remove(pecaCasaDestino);
-
             casaDestino.setPeca(peca); // Guarde a instância da peça na casa nova.
 
             casaOrigem.setPeca(null); // Esvazie a casa antiga.
 
-            if (peca instanceof Peao) {
+            if (peca.getCodigo() == Peca.PEAO) {
                 // EN PASSANT
 
-                int deslocamento = (peca.getCor() == BRANCO) ? 1 : -1;
-
-                if (filDestino == filOrigem + 2 * deslocamento) {
-                    ((Peao) peca).setJogadaDuasCasas(jogadas);
-                }
-
-                if (colOrigem != colDestino) {
-                    if (pecaCasaDestino == null) {
-                        if (((Peao) peca).getAlvoEnPassant() != null) {
-                            pecasNoTabuleiro.remove(((Peao) peca).getAlvoEnPassant());
-                            ((Peao) peca).getAlvoEnPassant().getCasa().esvaziar();
-                            ((Peao) peca).getAlvoEnPassant().setCasa(null);
-                        }
-                    }
+                if (colOrigem != colDestino && pecaCasaDestino == null) {
+                    // Captura na diagonal para casa vazia: o peão tomado está ao lado da casa de origem.
+                    Peca alvo = getCasa(colDestino, filOrigem).getPeca();
+                    chaveMaterial -= unidadeMaterial(alvo);
+                    pecas.remover(alvo);
+                    alvo.getCasa().esvaziar();
+                    alvo.setCasa(null);
                 }
 
                 // PROMOÇÃO
@@ -685,7 +1051,7 @@ public class Tabuleiro {
                     // turno preto ent lower
                     int tc = peca.getColuna();
                     int tf = peca.getFileira();
-                    pecasNoTabuleiro.remove(peca);
+                    pecas.remover(peca);
 
                     // setando peca null
                     // ifs para caso seja preta ou branca
@@ -704,13 +1070,27 @@ public class Tabuleiro {
                             yield null;
                         }
                     };
-                    // pecasNoTabuleiro.add(p); // Removido pois o construtor ja adiciona
+                    // pecas.adicionar(p); // Removido pois o construtor ja adiciona
                     p.setCasa(casaDestino);
                     casaDestino.setPeca(p);
+                    chaveMaterial += unidadeMaterial(p) - unidadeMaterial(peca);
                 }
 
             }
+            meioLances = (peca.getCodigo() == Peca.PEAO || pecaCasaDestino != null) ? 0 : meioLances + 1;
+            direitosDeRoque &= Posicao.mascaraRoque(Lance.casa(colOrigem, filOrigem))
+                    & Posicao.mascaraRoque(Lance.casa(colDestino, filDestino));
+            casaEnPassant = (peca.getCodigo() == Peca.PEAO && Math.abs(filDestino - filOrigem) == 2)
+                    ? Lance.casa(colOrigem, (filOrigem + filDestino) / 2) : Posicao.SEM_EN_PASSANT;
             jogadas++;
+            registrarHash(getHash());
+            publicarRetrato();
+            if (ouvinteLance != null) {
+                Peca promovida = casaDestino.getPeca();
+                int promocao = (promovida != peca) ? promovida.getCodigo() : 0;
+                ouvinteLance.lanceAceito(Lance.criar(Lance.casa(colOrigem, filOrigem),
+                        Lance.casa(colDestino, filDestino), promocao), tamanhoHistorico - 1);
+            }
             imprimirCorAtual();
             // virar(); //Vire o tabuleiro.
 
@@ -721,30 +1101,169 @@ public class Tabuleiro {
 
     }
 
+    /**
+     * Leva a torre do roque para o outro lado do rei. Quem chama já validou o roque.
+     */
     public static void moverTorreNoRoque(int colOrigem, int filOrigem, int colDestino, int filDestino) {
 
         Casa casaOrigem = getCasa(colOrigem, filOrigem);
         Casa casaDestino = getCasa(colDestino, filDestino);
 
         Peca peca = casaOrigem.getPeca();
-        Peca pecaCasaDestino = casaDestino.getPeca();
 
-        boolean movimentoLegal = peca.getCasasLegais().contains(casaDestino);
-        if (movimentoLegal) { // Se é um movimento legal...
-            peca.setJaMoveu(true);
-            peca.setPos(colDestino, filDestino); // Mova a peça para a casa desejada,
-            peca.setCasa(casaDestino); // Guarde a casa nova na instância da peça,
+        pecas.mover(casaOrigem.getIndice(), casaDestino.getIndice());
+        peca.setJaMoveu(true);
+        peca.setPos(colDestino, filDestino); // Mova a peça para a casa desejada,
+        peca.setCasa(casaDestino); // Guarde a casa nova na instância da peça,
 
-            casaDestino.setPeca(peca); // Guarde a instância da peça na casa nova.
+        casaDestino.setPeca(peca); // Guarde a instância da peça na casa nova.
 
-            casaOrigem.setPeca(null); // Esvazie a casa antiga.
+        casaOrigem.setPeca(null); // Esvazie a casa antiga.
+    }
 
-        } else {
-            System.out.println("Movimento ilegal!");
+    /**
+     * Hash Zobrist da posição atual: peças, vez, direitos de roque e coluna de en passant.
+     * A coluna de en passant só entra no hash quando existe um peão da vez capaz de capturar.
+     */
+    public static long getHash() {
+        long hash = 0;
+        for (int idColuna = 0; idColuna < COLUNAS; idColuna++) {
+            for (int idFileira = 0; idFileira < FILEIRAS; idFileira++) {
+                Peca peca = getCasa(idColuna, idFileira).getPeca();
+                if (peca != null) {
+                    hash ^= Zobrist.peca(peca.getCodigo(), peca.getCor(), Lance.casa(idColuna, idFileira));
+                }
+            }
+        }
+        if (jogadas % 2 != 0) {
+            hash ^= Zobrist.vezPretas();
+        }
+        hash ^= Zobrist.roque(getDireitosDeRoque());
+
+        int colunaEnPassant = getColunaEnPassant();
+        if (colunaEnPassant != -1) {
+            hash ^= Zobrist.enPassant(colunaEnPassant);
+        }
+        return hash;
+    }
+
+    /**
+     * Direitos de roque que restam, como máscara de {@code Zobrist.ROQUE_*}.
+     */
+    public static int getDireitosDeRoque() {
+        return direitosDeRoque;
+    }
+
+    /**
+     * Casa (índice de {@link Lance}) por onde o peão que acabou de andar duas casas passou, ou
+     * {@link Posicao#SEM_EN_PASSANT}.
+     */
+    public static int getCasaEnPassant() {
+        return casaEnPassant;
+    }
+
+    /**
+     * Peão que andou duas casas no último lance, ou null.
+     */
+    public static Peao getPeaoQueAndouDuasCasas() {
+        if (casaEnPassant == Posicao.SEM_EN_PASSANT) {
+            return null;
+        }
+        // O peão está uma fileira à frente da casa de en passant, no sentido em que andou.
+        Peca peca = getCasa((jogadas % 2 == 0) ? casaEnPassant - 8 : casaEnPassant + 8).getPeca();
+        return (peca instanceof Peao) ? (Peao) peca : null;
+    }
+
+    /**
+     * Coluna do peão que acabou de andar duas casas e pode ser capturado en passant, ou -1.
+     */
+    public static int getColunaEnPassant() {
+        Peao peao = getPeaoQueAndouDuasCasas();
+        if (peao == null) {
+            return -1;
+        }
+        for (int lado = -1; lado <= 1; lado += 2) {
+            int colunaVizinha = peao.getColuna() + lado;
+            if (colunaVizinha < 0 || colunaVizinha >= COLUNAS) {
+                continue;
+            }
+            Peca vizinha = getCasa(colunaVizinha, peao.getFileira()).getPeca();
+            if (vizinha instanceof Peao && vizinha.getCor() != peao.getCor()) {
+                return peao.getColuna();
+            }
+        }
+        return -1;
+    }
+
+    //region empates
+    /**
+     * Esquece as posições anteriores e começa o histórico na posição atual (ex: depois de carregar uma FEN).
+     */
+    public static void reiniciarHistorico() {
+        tamanhoHistorico = 0;
+        registrarHash(getHash());
+        if (ouvinteLance != null) {
+            ouvinteLance.partidaIniciada(toFEN());
+        }
+    }
+
+    /**
+     * Define quem é avisado dos lances aceitos (ex: um diário de partidas), ou null para nenhum.
+     */
+    public static void setOuvinteLance(OuvinteLance ouvinte) {
+        ouvinteLance = ouvinte;
+    }
+
+    private static void registrarHash(long hash) {
+        if (tamanhoHistorico == historicoHash.length) {
+            historicoHash = Arrays.copyOf(historicoHash, tamanhoHistorico * 2);
+        }
+        historicoHash[tamanhoHistorico++] = hash;
+    }
+
+    /**
+     * Repetição tripla: a posição atual já apareceu outras duas vezes. Só compara com posições do mesmo lado a
+     * jogar desde o último lance irreversível, já que uma captura ou lance de peão impede qualquer repetição.
+     */
+    public static boolean isEmpatePorRepeticao() {
+        int atual = tamanhoHistorico - 1;
+        if (atual < 0) {
+            return false;
+        }
+        int limite = Math.max(0, atual - meioLances);
+        int vezes = 0;
+        for (int i = atual - 2; i >= limite; i -= 2) {
+            if (historicoHash[i] == historicoHash[atual]) {
+                vezes++;
+            }
         }
+        return vezes >= 2;
+    }
 
+    /**
+     * 50 lances (100 meio-lances) de cada lado sem captura nem lance de peão.
+     */
+    public static boolean isEmpatePor50Lances() {
+        return meioLances >= 100;
     }
 
+    /**
+     * Nenhum dos lados tem material para dar mate: rei contra rei, rei e uma peça menor contra rei, ou apenas
+     * bispos que andam em casas da mesma cor. Só consulta a chave de material.
+     */
+    public static boolean isMaterialInsuficiente() {
+        return Material.insuficiente(chaveMaterial);
+    }
+
+    public static long getChaveMaterial() {
+        return chaveMaterial;
+    }
+
+    private static long unidadeMaterial(Peca peca) {
+        return Material.unidade(peca.getCodigo(), peca.getCor(), Lance.casa(peca.getColuna(), peca.getFileira()));
+    }
+    //endregion
+
     public static int getJogadas() {
         return jogadas;
     }
@@ -753,27 +1272,27 @@ public class Tabuleiro {
         Tabuleiro.jogadas = jogadas;
     }
 
-    public static void increaseDecreaseJogadas(int jogadas) {
-        Tabuleiro.jogadas += jogadas;
+    public static int getMeioLances() {
+        return meioLances;
     }
 
-    public static ArrayList<Peca> getPecasNoTabuleiro() {
-        return pecasNoTabuleiro;
+    public static void setMeioLances(int meioLances) {
+        Tabuleiro.meioLances = meioLances;
     }
 
-    public static Rei getReiPreto() {
-        return reiPreto;
+    public static void increaseDecreaseJogadas(int jogadas) {
+        Tabuleiro.jogadas += jogadas;
     }
 
-    public static void setReiBranco(Rei reiBranco) {
-        Tabuleiro.reiBranco = reiBranco;
+    public static ListaPecas getPecas() {
+        return pecas;
     }
 
-    public static void setReiPreto(Rei reiPreto) {
-        Tabuleiro.reiPreto = reiPreto;
+    public static Rei getReiPreto() {
+        return (Rei) pecas.getRei(PRETO);
     }
 
     public static Rei getReiBranco() {
-        return reiBranco;
+        return (Rei) pecas.getRei(BRANCO);
     }
 }
@@ -0,0 +1,54 @@
+package Tabuleiro;
+
+import java.util.SplittableRandom;
+
+/**
+ * Chaves Zobrist para identificar posições por um long de 64 bits.
+ * <p>
+ * As chaves são geradas com semente fixa, pois índices gravados em disco (ex: o explorador de aberturas)
+ * dependem de o mesmo hash ser produzido em todas as execuções.
+ */
+public final class Zobrist {
+    public static final int ROQUE_BRANCO_CURTO = 1;
+    public static final int ROQUE_BRANCO_LONGO = 2;
+    public static final int ROQUE_PRETO_CURTO = 4;
+    public static final int ROQUE_PRETO_LONGO = 8;
+
+    private static final long[] PECAS = new long[16 * 64]; // indexado por (tipo | cor << 3) * 64 + casa
+    private static final long[] ROQUE = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+    private static final long VEZ_PRETAS;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C0FFEEL);
+        for (int i = 0; i < PECAS.length; i++) {
+            PECAS[i] = random.nextLong();
+        }
+        for (int i = 0; i < ROQUE.length; i++) {
+            ROQUE[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT.length; i++) {
+            EN_PASSANT[i] = random.nextLong();
+        }
+        VEZ_PRETAS = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long peca(int tipo, int cor, int casa) {
+        return PECAS[((tipo | (cor << 3)) << 6) | casa];
+    }
+
+    public static long roque(int direitos) {
+        return ROQUE[direitos];
+    }
+
+    public static long enPassant(int coluna) {
+        return EN_PASSANT[coluna];
+    }
+
+    public static long vezPretas() {
+        return VEZ_PRETAS;
+    }
+}
@@ -14,9 +14,18 @@ import javafx.stage.Stage;
 
 import Tabuleiro.Tabuleiro;
 import Tabuleiro.Casa;
+import Tabuleiro.Lance;
+import Tabuleiro.Posicao;
+import Tabuleiro.RetratoPosicao;
 import pecas.*;
-
-import java.util.ArrayList;
+import persistencia.Diario;
+import persistencia.EstatisticaLance;
+import persistencia.ExploradorAberturas;
+import persistencia.RegistroPartida;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
 
 import static Tabuleiro.Tabuleiro.FEN_POS_INICIAL;
@@ -33,6 +42,13 @@ public class ChessGUI extends Application {
     private TextField fenInput; // Input field for FEN strings
     private RadioButton whiteTurnRadio; // Radio button for White's turn
     private RadioButton blackTurnRadio; // Radio button for Black's turn
+    private TextField explorerInput; // Input field for the opening explorer index path
+
+    // Opening explorer index (memory-mapped, read-only). Null when no index is loaded.
+    private ExploradorAberturas explorer;
+
+    // Crash-recovery journal of the local game. Null when it could not be opened.
+    private Diario journal;
 
     // State Management
     // We store the LOGICAL coordinates of the selected piece (0-7), not the visual ones.
@@ -50,7 +66,14 @@ public class ChessGUI extends Application {
         // 1. Initialize the Game Logic (Model)
         Tabuleiro.criarCasas(); // Create the internal 8x8 array of 'Casa' objects
         Tabuleiro.preencherCasasToString(); // Helper for algebraic notation (e.g., "a1")
-        Tabuleiro.lerFEN(FEN_POS_INICIAL); // Load standard starting position
+        // Resume the unfinished local game from the journal, or load the standard starting position.
+        // From here on every accepted move is journaled.
+        try {
+            journal = Diario.abrirPartidaLocal(Diario.diretorioLocal());
+        } catch (IOException e) {
+            System.out.println("No game journal: " + e.getMessage());
+            Tabuleiro.lerFEN(FEN_POS_INICIAL); // Load standard starting position
+        }
         refreshGameState(); // Calculate initial legal moves for all pieces
 
         // 2. Setup the Main Layout (BorderPane)
@@ -96,7 +119,7 @@ public class ChessGUI extends Application {
         // FEN Input
         Label fenLabel = new Label("FEN String:");
         fenInput = new TextField();
-        fenInput.setPromptText("Paste FEN here...");
+        fenInput.setPromptText("Paste FEN here (placement or full FEN)...");
         
         // Turn Selection for FEN
         Label turnSelectLabel = new Label("Active Color:");
@@ -115,6 +138,14 @@ public class ChessGUI extends Application {
         Button loadFenBtn = new Button("Load FEN");
         loadFenBtn.setOnAction(e -> loadFEN());
 
+        // Opening Explorer Index
+        Label explorerLabel = new Label("Opening Index:");
+        explorerInput = new TextField();
+        explorerInput.setPromptText("Path to explorer index...");
+
+        Button loadExplorerBtn = new Button("Load Index");
+        loadExplorerBtn.setOnAction(e -> loadExplorer());
+
         // Auto-Flip Toggle
         CheckBox autoFlipCheck = new CheckBox("Auto-rotate Board");
         autoFlipCheck.setStyle("-fx-text-fill: white;");
@@ -132,6 +163,10 @@ public class ChessGUI extends Application {
             turnBox,
             loadFenBtn,
             new Separator(),
+            explorerLabel,
+            explorerInput,
+            loadExplorerBtn,
+            new Separator(),
             autoFlipCheck
         );
         
@@ -179,20 +214,22 @@ public class ChessGUI extends Application {
     private void renderBoard() {
         boardGrid.getChildren().clear(); // Remove all existing squares/pieces
 
+        // Pieces, turn and hash come from the latest published snapshot, never from the live board
+        RetratoPosicao snapshot = Tabuleiro.getRetrato();
+
         // Determine if the board should be visually flipped (Black at bottom)
-        // This happens if autoFlip is ON and it is currently Black's turn (odd number of moves).
-        boolean isFlipped = autoFlip && (Tabuleiro.getJogadas() % 2 != 0);
+        // This happens if autoFlip is ON and it is currently Black's turn.
+        boolean isFlipped = autoFlip && snapshot.getVez() == Tabuleiro.PRETO;
 
-        // Prepare list of legal moves for the selected piece (if any)
-        ArrayList<Casa> legalMoves = new ArrayList<>();
+        // Legal moves of the selected piece only, computed on demand and cached until the position changes
+        List<Casa> legalMoves = List.of();
         if (selectedLogicCol != null && selectedLogicRow != null) {
-            Casa selectedCasa = Tabuleiro.getCasa(selectedLogicCol, selectedLogicRow);
-            Peca selectedPiece = selectedCasa.getPeca();
-            if (selectedPiece != null) {
-                legalMoves = selectedPiece.getCasasLegais();
-            }
+            legalMoves = Tabuleiro.casasLegais(selectedLogicCol, selectedLogicRow);
         }
 
+        // Position hash for opening explorer lookups (only needed when a piece is selected)
+        long positionHash = (explorer != null && !legalMoves.isEmpty()) ? snapshot.getHash() : 0;
+
         // Loop through visual rows and columns (0,0 is top-left of the screen)
         for (int row = 0; row < BOARD_SIZE; row++) {
             for (int col = 0; col < BOARD_SIZE; col++) {
@@ -243,16 +280,28 @@ public class ChessGUI extends Application {
                     Circle indicator = new Circle(TILE_SIZE / 6.0);
                     indicator.getStyleClass().add("legal-move-indicator");
                     tile.getChildren().add(indicator);
+
+                    // Annotate the candidate move with how often it was played from this position
+                    if (explorer != null) {
+                        EstatisticaLance stats = explorer.consultar(positionHash,
+                                explorerMove(selectedLogicCol, selectedLogicRow, logicColuna, logicFileira));
+                        if (stats != null) {
+                            Label statsLabel = new Label(String.valueOf(stats.getPartidas()));
+                            statsLabel.getStyleClass().add("explorer-label");
+                            StackPane.setAlignment(statsLabel, Pos.BOTTOM_RIGHT);
+                            tile.getChildren().add(statsLabel);
+                        }
+                    }
                 }
 
                 // --- Render Piece ---
-                Peca peca = currentCasa.getPeca();
+                int peca = snapshot.getPeca(logicColuna, logicFileira);
 
-                if (peca != null) {
-                    Label pieceLabel = new Label(getPieceSymbol(peca));
+                if (peca != Posicao.VAZIO) {
+                    Label pieceLabel = new Label(getPieceSymbol(Posicao.tipo(peca)));
                     pieceLabel.getStyleClass().add("piece");
                     // Add specific class for White or Black piece styling
-                    pieceLabel.getStyleClass().add(peca.getCor() == Tabuleiro.BRANCO ? "white-piece" : "black-piece");
+                    pieceLabel.getStyleClass().add(Posicao.cor(peca) == Tabuleiro.BRANCO ? "white-piece" : "black-piece");
                     tile.getChildren().add(pieceLabel);
                 }
 
@@ -304,6 +353,15 @@ public class ChessGUI extends Application {
                 return;
             }
 
+            // A click on a square the piece can't reach just drops the selection; no move, no refresh.
+            Casa targetCasa = Tabuleiro.getCasa(logicCol, logicRow);
+            if (!Tabuleiro.casasLegais(selectedLogicCol, selectedLogicRow).contains(targetCasa)) {
+                selectedLogicCol = null;
+                selectedLogicRow = null;
+                renderBoard();
+                return;
+            }
+
             // Attempt to move the selected piece to the clicked square.
             
             // Check for promotion BEFORE moving
@@ -344,6 +402,20 @@ public class ChessGUI extends Application {
         }
     }
     
+    /**
+     * Encodes a candidate move the same way the explorer index does.
+     * Pawn moves to the last row are looked up as queen promotions.
+     */
+    private int explorerMove(int fromCol, int fromRow, int toCol, int toRow) {
+        int from = Lance.casa(fromCol, fromRow);
+        int to = Lance.casa(toCol, toRow);
+        Peca piece = Tabuleiro.getCasa(fromCol, fromRow).getPeca();
+        if (piece instanceof Peao && (toRow == Tabuleiro.OITAVA_FILEIRA || toRow == Tabuleiro.PRIMEIRA_FILEIRA)) {
+            return Lance.criar(from, to, Peca.RAINHA);
+        }
+        return Lance.criar(from, to);
+    }
+
     private char askForPromotion() {
         ChoiceDialog<String> dialog = new ChoiceDialog<>("Queen", "Queen", "Rook", "Bishop", "Knight");
         dialog.setTitle("Pawn Promotion");
@@ -376,16 +448,8 @@ public class ChessGUI extends Application {
      * for the next turn.
      */
     private void refreshGameState() {
-        Tabuleiro.clearCasasLegais();       // Clear old legal moves
-        Tabuleiro.clearCasasDeBloqueio();   // Clear old blocking squares
-        Tabuleiro.clearPecasAtacantes();    // Reset attacker counts
-        Tabuleiro.clearIsAtacked();         // Reset attacked status of squares
-
-        Tabuleiro.refreshCasasLegais();     // Calculate raw legal moves for all pieces
-        Tabuleiro.refreshIsInCheck();       // Check if Kings are in check
-        Tabuleiro.refreshFiltroCasasLegais(); // Filter moves that would leave King in check
-        Tabuleiro.refreshCravaPecas();      // Handle pinned pieces
-        Tabuleiro.uniteCasasLegais();       // Aggregate all legal moves for white/black
+        // Legal moves, checks, blocking squares and pins; only pieces affected by the last move are recomputed
+        Tabuleiro.atualizarEstadoIncremental();
     }
 
     private void checkGameOver() {
@@ -399,17 +463,31 @@ public class ChessGUI extends Application {
         System.out.println("Black Legal Moves Count: " + Tabuleiro.casasLegaisPecasPretas.size());
 
         if (Tabuleiro.getReiBranco().isCheckmated()) {
-            gameEnded = true;
-            showAlert("Game Over", "Black wins by Checkmate!");
+            endGame(RegistroPartida.VITORIA_PRETAS, "Black wins by Checkmate!");
         } else if (Tabuleiro.getReiPreto().isCheckmated()) {
-            gameEnded = true;
-            showAlert("Game Over", "White wins by Checkmate!");
+            endGame(RegistroPartida.VITORIA_BRANCAS, "White wins by Checkmate!");
         } else if (Tabuleiro.getReiBranco().isStalemate() || Tabuleiro.getReiPreto().isStalemate()) {
-            gameEnded = true;
-            showAlert("Game Over", "Draw by Stalemate!");
+            endGame(RegistroPartida.EMPATE, "Draw by Stalemate!");
+        } else if (Tabuleiro.isEmpatePorRepeticao()) {
+            endGame(RegistroPartida.EMPATE, "Draw by Threefold Repetition!");
+        } else if (Tabuleiro.isEmpatePor50Lances()) {
+            endGame(RegistroPartida.EMPATE, "Draw by the 50-Move Rule!");
+        } else if (Tabuleiro.isMaterialInsuficiente()) {
+            endGame(RegistroPartida.EMPATE, "Draw by Insufficient Material!");
         }
     }
 
+    /**
+     * Marks the game as over and journals the result, so a finished game is not resumed on the next start.
+     */
+    private void endGame(int result, String message) {
+        gameEnded = true;
+        if (journal != null) {
+            journal.registrarFim(Diario.PARTIDA_LOCAL, result);
+        }
+        showAlert("Game Over", message);
+    }
+
     private void showAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle(title);
@@ -451,8 +529,13 @@ public class ChessGUI extends Application {
         int turnColor = whiteTurnRadio.isSelected() ? Tabuleiro.BRANCO : Tabuleiro.PRETO;
 
         Tabuleiro.limpar();
-        // Use the new overloaded lerFEN method that accepts the turn color
-        Tabuleiro.lerFEN(fen, turnColor);
+        if (fen.contains(" ")) {
+            // Full FEN: side to move, castling, en passant and clocks come from the string itself
+            Tabuleiro.lerFEN(fen);
+        } else {
+            // Piece placement only: use the turn selected with the radio buttons
+            Tabuleiro.lerFEN(fen, turnColor);
+        }
         
         gameEnded = false; // Reset game over flag
         refreshGameState();
@@ -463,6 +546,28 @@ public class ChessGUI extends Application {
         renderBoard();
     }
 
+    /**
+     * Opens (memory-maps) the opening explorer index entered by the user.
+     */
+    private void loadExplorer() {
+        String path = explorerInput.getText().trim();
+        if (path.isEmpty()) {
+            return;
+        }
+
+        try {
+            ExploradorAberturas opened = ExploradorAberturas.abrir(Path.of(path));
+            if (explorer != null) {
+                explorer.close();
+            }
+            explorer = opened;
+        } catch (IOException e) {
+            showAlert("Opening Explorer", "Could not open index: " + e.getMessage());
+            return;
+        }
+        renderBoard();
+    }
+
     /**
      * Updates the text label indicating whose turn it is.
      */
@@ -476,22 +581,28 @@ public class ChessGUI extends Application {
     }
 
     /**
-     * Helper method to get the Unicode character for a given piece.
+     * Helper method to get the Unicode character for a given piece type code (Peca.PEAO ... Peca.REI).
      */
-    private String getPieceSymbol(Peca p) {
-        if (p instanceof Torre)
-            return "♜";
-        if (p instanceof Cavalo)
-            return "♞";
-        if (p instanceof Bispo)
-            return "♝";
-        if (p instanceof Rainha)
-            return "♛";
-        if (p instanceof Rei)
-            return "♚";
-        if (p instanceof Peao)
-            return "♟";
-        return "?";
+    private String getPieceSymbol(int tipo) {
+        return switch (tipo) {
+            case Peca.TORRE -> "♜";
+            case Peca.CAVALO -> "♞";
+            case Peca.BISPO -> "♝";
+            case Peca.RAINHA -> "♛";
+            case Peca.REI -> "♚";
+            case Peca.PEAO -> "♟";
+            default -> "?";
+        };
+    }
+
+    @Override
+    public void stop() throws IOException {
+        if (journal != null) {
+            journal.close(); // Flushes the last moves to disk
+        }
+        if (explorer != null) {
+            explorer.close();
+        }
     }
 
     public static void main(String[] args) {
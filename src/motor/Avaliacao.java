@@ -0,0 +1,140 @@
+package motor;
+
+import Tabuleiro.Lance;
+import Tabuleiro.Posicao;
+
+import static Tabuleiro.Tabuleiro.BRANCO;
+import static pecas.Peca.*;
+
+/**
+ * Avaliação estática: material mais tabelas de casas por peça.
+ * As tabelas estão escritas do ponto de vista das brancas, da oitava fileira (em cima) para a primeira.
+ */
+public final class Avaliacao {
+    public static final int[] VALOR = {0, 100, 320, 330, 500, 900, 0};
+
+    // Material sem peões a partir do qual a posição é tratada como meio-jogo puro (fase 0 = final).
+    private static final int FASE_TOTAL = 2 * (2 * 320 + 2 * 330 + 2 * 500 + 900);
+
+    private static final int[] TABELA_PEAO = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0};
+
+    private static final int[] TABELA_CAVALO = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50};
+
+    private static final int[] TABELA_BISPO = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20};
+
+    private static final int[] TABELA_TORRE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0};
+
+    private static final int[] TABELA_RAINHA = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20};
+
+    private static final int[] TABELA_REI_MEIO_JOGO = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20};
+
+    private static final int[] TABELA_REI_FINAL = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50};
+
+    private static final int[][] TABELAS = {null, TABELA_PEAO, TABELA_CAVALO, TABELA_BISPO, TABELA_TORRE,
+            TABELA_RAINHA};
+
+    private Avaliacao() {
+    }
+
+    /**
+     * Pontuação em centipeões do ponto de vista de quem tem a vez. Finais conhecidos vão para {@link Finais}.
+     */
+    public static int avaliar(Posicao posicao) {
+        int finalConhecido = Finais.avaliar(posicao);
+        if (finalConhecido != Finais.SEM_AVALIADOR) {
+            return finalConhecido;
+        }
+
+        int pontuacao = 0;
+        int fase = 0;
+        int reiMeioJogo = 0;
+        int reiFinal = 0;
+
+        for (int casa = 0; casa < 64; casa++) {
+            int peca = posicao.getPeca(casa);
+            if (peca == Posicao.VAZIO) {
+                continue;
+            }
+            int tipo = Posicao.tipo(peca);
+            int sinal = (Posicao.cor(peca) == BRANCO) ? 1 : -1;
+            int indice = indiceTabela(casa, Posicao.cor(peca));
+
+            if (tipo == REI) {
+                reiMeioJogo += sinal * TABELA_REI_MEIO_JOGO[indice];
+                reiFinal += sinal * TABELA_REI_FINAL[indice];
+                continue;
+            }
+            if (tipo != PEAO) {
+                fase += VALOR[tipo];
+            }
+            pontuacao += sinal * (VALOR[tipo] + TABELAS[tipo][indice]);
+        }
+
+        fase = Math.min(fase, FASE_TOTAL);
+        pontuacao += (reiMeioJogo * fase + reiFinal * (FASE_TOTAL - fase)) / FASE_TOTAL;
+
+        return (posicao.getVez() == BRANCO) ? pontuacao : -pontuacao;
+    }
+
+    // Espelha a casa para as pretas; as tabelas começam na oitava fileira.
+    private static int indiceTabela(int casa, int cor) {
+        int fileira = (cor == BRANCO) ? 7 - Lance.fileira(casa) : Lance.fileira(casa);
+        return fileira * 8 + Lance.coluna(casa);
+    }
+}
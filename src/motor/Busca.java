@@ -0,0 +1,251 @@
+package motor;
+
+import Tabuleiro.Lance;
+import Tabuleiro.Posicao;
+
+/**
+ * Busca alfa-beta com aprofundamento iterativo, tabela de transposição e busca quiescente.
+ * <p>
+ * Os lances de cada nó saem de um {@link SeletorLances}, em fases, e os lances quietos que causam corte beta
+ * ficam guardados como matadores (dois por ply) para serem tentados cedo nos nós irmãos.
+ * <p>
+ * Cada instância trabalha sobre a sua própria {@link Posicao} e {@link TabelaTransposicao}, então várias buscas
+ * podem rodar em paralelo, uma por thread. Os limites de tempo e de nós são verificados a cada 2048 nós.
+ */
+public class Busca {
+    public static final int INFINITO = 30000;
+    public static final int MATE = 29000;
+    public static final int MAX_PLY = 128;
+
+    private static final int LIMITE_MATE = MATE - MAX_PLY;
+
+    private final Posicao posicao;
+    private final TabelaTransposicao tabela;
+    private final SeletorLances[] seletores = new SeletorLances[MAX_PLY];
+    private final int[][] matadores = new int[MAX_PLY][2];
+
+    private long nos;
+    private long limiteNos;
+    private long prazo;
+    private boolean interrompida;
+    private volatile boolean parar;
+
+    private int melhorLanceRaiz;
+    private int pontuacaoRaiz;
+
+    public Busca(Posicao posicao, TabelaTransposicao tabela) {
+        this.posicao = posicao;
+        this.tabela = tabela;
+        for (int i = 0; i < MAX_PLY; i++) {
+            seletores[i] = new SeletorLances(posicao);
+        }
+    }
+
+    /**
+     * Procura o melhor lance da posição, aprofundando até {@code profundidadeMaxima} ou até estourar um dos
+     * limites. Limites menores ou iguais a zero são ignorados.
+     *
+     * @return o melhor lance da última iteração completa, ou {@link Lance#NENHUM} se não há lances legais.
+     */
+    public int buscar(int profundidadeMaxima, long tempoMs, long limiteNos, OuvinteBusca ouvinte) {
+        long inicio = System.nanoTime();
+        this.nos = 0;
+        this.limiteNos = (limiteNos > 0) ? limiteNos : Long.MAX_VALUE;
+        this.prazo = (tempoMs > 0) ? inicio + tempoMs * 1_000_000 : Long.MAX_VALUE;
+        this.interrompida = false;
+        this.parar = false;
+        for (int[] matador : matadores) {
+            matador[0] = Lance.NENHUM;
+            matador[1] = Lance.NENHUM;
+        }
+
+        int melhorLance = Lance.NENHUM;
+        int melhorPontuacao = 0;
+        profundidadeMaxima = Math.min(profundidadeMaxima, MAX_PLY - 1);
+
+        for (int profundidade = 1; profundidade <= profundidadeMaxima; profundidade++) {
+            melhorLanceRaiz = Lance.NENHUM;
+            int pontuacao = alfaBeta(profundidade, -INFINITO, INFINITO, 0);
+
+            if (interrompida) {
+                // Uma iteração parcial só serve se já achou algo melhor que a anterior.
+                if (melhorLanceRaiz != Lance.NENHUM && pontuacaoRaiz > melhorPontuacao) {
+                    melhorLance = melhorLanceRaiz;
+                    melhorPontuacao = pontuacaoRaiz;
+                }
+                break;
+            }
+            melhorLance = melhorLanceRaiz;
+            melhorPontuacao = pontuacao;
+
+            if (ouvinte != null) {
+                ouvinte.iteracaoCompleta(profundidade, melhorLance, melhorPontuacao, nos, System.nanoTime() - inicio);
+            }
+            if (melhorLance == Lance.NENHUM || Math.abs(melhorPontuacao) >= LIMITE_MATE) {
+                break; // Sem lances, ou mate já encontrado.
+            }
+        }
+        pontuacaoRaiz = melhorPontuacao;
+        return melhorLance;
+    }
+
+    /**
+     * Pede para a busca parar assim que possível. Pode ser chamado de outra thread.
+     */
+    public void parar() {
+        parar = true;
+    }
+
+    public long getNos() {
+        return nos;
+    }
+
+    public int getPontuacao() {
+        return pontuacaoRaiz;
+    }
+
+    private int alfaBeta(int profundidade, int alfa, int beta, int ply) {
+        if (profundidade <= 0 || ply >= MAX_PLY - 1) {
+            return quiescente(alfa, beta, ply);
+        }
+        if ((++nos & 2047) == 0) {
+            verificarLimites();
+        }
+        if (interrompida) {
+            return 0;
+        }
+        if (ply > 0 && (posicao.ehRepeticao() || posicao.regraDos50Lances() || posicao.materialInsuficiente())) {
+            return 0;
+        }
+
+        long hash = posicao.getHash();
+        long entrada = tabela.consultar(hash);
+        int lanceTabela = TabelaTransposicao.lance(entrada);
+        if (entrada != 0 && ply > 0 && TabelaTransposicao.profundidade(entrada) >= profundidade) {
+            int pontuacao = deTabela(TabelaTransposicao.pontuacao(entrada), ply);
+            int tipo = TabelaTransposicao.tipo(entrada);
+            if (tipo == TabelaTransposicao.EXATO
+                    || (tipo == TabelaTransposicao.INFERIOR && pontuacao >= beta)
+                    || (tipo == TabelaTransposicao.SUPERIOR && pontuacao <= alfa)) {
+                return pontuacao;
+            }
+        }
+
+        boolean emXeque = posicao.emXeque();
+        if (emXeque) {
+            profundidade++; // Extensão de xeque.
+        }
+
+        SeletorLances seletor = seletores[ply];
+        seletor.iniciar(lanceTabela, matadores[ply][0], matadores[ply][1], emXeque);
+
+        int cor = posicao.getVez();
+        int legais = 0;
+        int melhor = -INFINITO;
+        int melhorLance = Lance.NENHUM;
+        int tipo = TabelaTransposicao.SUPERIOR;
+
+        for (int lance = seletor.proximo(); lance != Lance.NENHUM; lance = seletor.proximo()) {
+            boolean quieto = !posicao.ehCaptura(lance) && Lance.promocao(lance) == 0;
+            posicao.fazerLance(lance);
+            if (!emXeque && posicao.casaAtacada(posicao.getCasaRei(cor), cor ^ 1)) { // Evasões já são legais.
+                posicao.desfazerLance();
+                continue;
+            }
+            legais++;
+            int pontuacao = -alfaBeta(profundidade - 1, -beta, -alfa, ply + 1);
+            posicao.desfazerLance();
+
+            if (interrompida) {
+                return 0;
+            }
+            if (pontuacao > melhor) {
+                melhor = pontuacao;
+                melhorLance = lance;
+                if (ply == 0) {
+                    melhorLanceRaiz = lance;
+                    pontuacaoRaiz = pontuacao;
+                }
+            }
+            if (pontuacao > alfa) {
+                alfa = pontuacao;
+                tipo = TabelaTransposicao.EXATO;
+                if (pontuacao >= beta) {
+                    tipo = TabelaTransposicao.INFERIOR;
+                    if (quieto && lance != matadores[ply][0]) {
+                        matadores[ply][1] = matadores[ply][0];
+                        matadores[ply][0] = lance;
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (legais == 0) {
+            return emXeque ? -MATE + ply : 0;
+        }
+        tabela.gravar(hash, melhorLance, paraTabela(melhor, ply), profundidade, tipo);
+        return melhor;
+    }
+
+    private int quiescente(int alfa, int beta, int ply) {
+        if ((++nos & 2047) == 0) {
+            verificarLimites();
+        }
+        if (interrompida) {
+            return 0;
+        }
+
+        int estatica = Avaliacao.avaliar(posicao);
+        if (estatica >= beta || ply >= MAX_PLY - 1) {
+            return estatica;
+        }
+        if (estatica > alfa) {
+            alfa = estatica;
+        }
+
+        SeletorLances seletor = seletores[ply];
+        seletor.iniciarCapturas();
+
+        int cor = posicao.getVez();
+        for (int lance = seletor.proximo(); lance != Lance.NENHUM; lance = seletor.proximo()) {
+            posicao.fazerLance(lance);
+            if (posicao.casaAtacada(posicao.getCasaRei(cor), cor ^ 1)) {
+                posicao.desfazerLance();
+                continue;
+            }
+            int pontuacao = -quiescente(-beta, -alfa, ply + 1);
+            posicao.desfazerLance();
+
+            if (interrompida) {
+                return 0;
+            }
+            if (pontuacao >= beta) {
+                return pontuacao;
+            }
+            if (pontuacao > alfa) {
+                alfa = pontuacao;
+            }
+        }
+        return alfa;
+    }
+
+    private void verificarLimites() {
+        if (parar || nos >= limiteNos || System.nanoTime() >= prazo) {
+            interrompida = true;
+        }
+    }
+
+    // Pontuações de mate são guardadas relativas ao nó, não à raiz, para valerem em qualquer ply.
+    private static int paraTabela(int pontuacao, int ply) {
+        if (pontuacao >= LIMITE_MATE) return pontuacao + ply;
+        if (pontuacao <= -LIMITE_MATE) return pontuacao - ply;
+        return pontuacao;
+    }
+
+    private static int deTabela(int pontuacao, int ply) {
+        if (pontuacao >= LIMITE_MATE) return pontuacao - ply;
+        if (pontuacao <= -LIMITE_MATE) return pontuacao + ply;
+        return pontuacao;
+    }
+}
@@ -0,0 +1,376 @@
+package motor;
+
+import Tabuleiro.Lance;
+import Tabuleiro.Notacao;
+import Tabuleiro.Posicao;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Executa suítes de teste EPD (WAC, STS, ...) em paralelo, com orçamento fixo de tempo e/ou nós por posição.
+ * <p>
+ * Lê as operações {@code bm} (melhor lance), {@code am} (lance a evitar) e {@code id}; as demais são ignoradas.
+ * Cada thread do pool reaproveita a sua própria posição, busca e tabela de transposição entre as posições.
+ *
+ * <pre>
+ * java motor.ExecutorEPD wac.epd [-t ms] [-n nós] [-p profundidade] [-j threads] [-hash MB]
+ * </pre>
+ */
+public class ExecutorEPD {
+
+    /**
+     * Uma linha EPD já interpretada. Os lances ficam em notação SAN, como no arquivo.
+     */
+    public static class PosicaoEPD {
+        private final String id;
+        private final String fen;
+        private final List<String> melhores;
+        private final List<String> evitar;
+
+        public PosicaoEPD(String id, String fen, List<String> melhores, List<String> evitar) {
+            this.id = id;
+            this.fen = fen;
+            this.melhores = melhores;
+            this.evitar = evitar;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getFen() {
+            return fen;
+        }
+
+        public List<String> getMelhores() {
+            return melhores;
+        }
+
+        public List<String> getEvitar() {
+            return evitar;
+        }
+    }
+
+    public static class Resultado {
+        private final PosicaoEPD posicao;
+        private final String lance;
+        private final boolean resolvida;
+        private final long nanosAteSolucao;
+        private final long nos;
+        private final long nanos;
+        private final int profundidade;
+
+        Resultado(PosicaoEPD posicao, String lance, boolean resolvida, long nanosAteSolucao, long nos, long nanos,
+                  int profundidade) {
+            this.posicao = posicao;
+            this.lance = lance;
+            this.resolvida = resolvida;
+            this.nanosAteSolucao = nanosAteSolucao;
+            this.nos = nos;
+            this.nanos = nanos;
+            this.profundidade = profundidade;
+        }
+
+        public PosicaoEPD getPosicao() {
+            return posicao;
+        }
+
+        public String getLance() {
+            return lance;
+        }
+
+        public boolean isResolvida() {
+            return resolvida;
+        }
+
+        /**
+         * Tempo até a iteração a partir da qual a busca passou a escolher (e manteve) um lance correto.
+         */
+        public long getNanosAteSolucao() {
+            return nanosAteSolucao;
+        }
+
+        public long getNos() {
+            return nos;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public int getProfundidade() {
+            return profundidade;
+        }
+    }
+
+    // Recursos de busca de cada thread do pool.
+    private static class Trabalhador {
+        final Posicao posicao = new Posicao();
+        final TabelaTransposicao tabela;
+        final Busca busca;
+
+        Trabalhador(int megabytesTabela) {
+            tabela = new TabelaTransposicao(megabytesTabela);
+            busca = new Busca(posicao, tabela);
+        }
+    }
+
+    private final int threads;
+    private final long tempoMs;
+    private final long limiteNos;
+    private final int profundidadeMaxima;
+    private final ThreadLocal<Trabalhador> trabalhadores;
+
+    public ExecutorEPD(int threads, long tempoMs, long limiteNos, int profundidadeMaxima, int megabytesTabela) {
+        this.threads = threads;
+        this.tempoMs = tempoMs;
+        this.limiteNos = limiteNos;
+        this.profundidadeMaxima = profundidadeMaxima;
+        TabelaTransposicao.entradas(megabytesTabela); // Recusa um tamanho inválido aqui, e não na busca de cada thread.
+        this.trabalhadores = ThreadLocal.withInitial(() -> new Trabalhador(megabytesTabela));
+    }
+
+    //region leitura
+    public static List<PosicaoEPD> lerArquivo(Path arquivo) throws IOException {
+        ArrayList<PosicaoEPD> posicoes = new ArrayList<>();
+        Posicao posicao = new Posicao();
+        int numeroLinha = 0;
+        for (String linha : Files.readAllLines(arquivo)) {
+            numeroLinha++;
+            if (linha.isBlank() || linha.startsWith("#")) {
+                continue;
+            }
+            try {
+                posicoes.add(lerLinha(linha, posicao, "linha " + numeroLinha));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Linha " + numeroLinha + " ignorada: " + e.getMessage());
+            }
+        }
+        return posicoes;
+    }
+
+    /**
+     * Interpreta uma linha EPD: os quatro campos de FEN seguidos de operações "opcode operandos;".
+     */
+    public static PosicaoEPD lerLinha(String linha, Posicao posicao, String idPadrao) {
+        int i = posicao.lerFEN(linha, 0);
+
+        String id = idPadrao;
+        ArrayList<String> melhores = new ArrayList<>(2);
+        ArrayList<String> evitar = new ArrayList<>(2);
+        ArrayList<String> operandos = new ArrayList<>(4);
+
+        while (i < linha.length()) {
+            while (i < linha.length() && (linha.charAt(i) == ' ' || linha.charAt(i) == ';')) {
+                i++;
+            }
+            if (i >= linha.length()) {
+                break;
+            }
+            int inicioOpcode = i;
+            while (i < linha.length() && linha.charAt(i) != ' ' && linha.charAt(i) != ';') {
+                i++;
+            }
+            String opcode = linha.substring(inicioOpcode, i);
+
+            operandos.clear();
+            while (i < linha.length() && linha.charAt(i) != ';') {
+                char c = linha.charAt(i);
+                if (c == ' ') {
+                    i++;
+                } else if (c == '"') {
+                    int fimAspas = linha.indexOf('"', i + 1);
+                    if (fimAspas < 0) {
+                        throw new IllegalArgumentException("Aspas sem fechamento na operação " + opcode);
+                    }
+                    operandos.add(linha.substring(i + 1, fimAspas));
+                    i = fimAspas + 1;
+                } else {
+                    int inicio = i;
+                    while (i < linha.length() && linha.charAt(i) != ' ' && linha.charAt(i) != ';') {
+                        i++;
+                    }
+                    operandos.add(linha.substring(inicio, i));
+                }
+            }
+
+            switch (opcode) {
+                case "bm" -> melhores.addAll(operandos);
+                case "am" -> evitar.addAll(operandos);
+                case "id" -> {
+                    if (!operandos.isEmpty()) {
+                        id = operandos.get(0);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        for (String san : melhores) {
+            verificarLance(posicao, san);
+        }
+        for (String san : evitar) {
+            verificarLance(posicao, san);
+        }
+        return new PosicaoEPD(id, posicao.toFEN(), melhores, evitar);
+    }
+
+    private static void verificarLance(Posicao posicao, String san) {
+        if (Notacao.deSAN(posicao, san) == Lance.NENHUM) {
+            throw new IllegalArgumentException("Lance '" + san + "' não é legal na posição");
+        }
+    }
+    //endregion
+
+    //region execução
+    public List<Resultado> executar(List<PosicaoEPD> posicoes) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            ArrayList<Future<Resultado>> futuros = new ArrayList<>(posicoes.size());
+            for (PosicaoEPD posicao : posicoes) {
+                futuros.add(pool.submit(() -> analisar(posicao)));
+            }
+
+            ArrayList<Resultado> resultados = new ArrayList<>(posicoes.size());
+            for (Future<Resultado> futuro : futuros) {
+                try {
+                    resultados.add(futuro.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Falha ao analisar posição", e.getCause());
+                }
+            }
+            return resultados;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Resultado analisar(PosicaoEPD epd) {
+        Trabalhador trabalhador = trabalhadores.get();
+        Posicao posicao = trabalhador.posicao;
+        posicao.lerFEN(epd.getFen());
+        trabalhador.tabela.limpar();
+
+        int[] melhores = resolverLances(posicao, epd.getMelhores());
+        int[] evitar = resolverLances(posicao, epd.getEvitar());
+
+        long[] solucao = {-1};
+        int[] profundidade = {0};
+        long inicio = System.nanoTime();
+
+        int lance = trabalhador.busca.buscar(profundidadeMaxima, tempoMs, limiteNos,
+                (prof, melhor, pontuacao, nos, nanos) -> {
+                    profundidade[0] = prof;
+                    if (!satisfaz(melhor, melhores, evitar)) {
+                        solucao[0] = -1;
+                    } else if (solucao[0] < 0) {
+                        solucao[0] = nanos;
+                    }
+                });
+
+        long nanos = System.nanoTime() - inicio;
+        boolean resolvida = satisfaz(lance, melhores, evitar);
+        String san = (lance == Lance.NENHUM) ? "-" : Notacao.paraSAN(posicao, lance);
+        return new Resultado(epd, san, resolvida, resolvida ? Math.max(solucao[0], 0) : -1,
+                trabalhador.busca.getNos(), nanos, profundidade[0]);
+    }
+
+    private static int[] resolverLances(Posicao posicao, List<String> sans) {
+        int[] lances = new int[sans.size()];
+        for (int i = 0; i < lances.length; i++) {
+            lances[i] = Notacao.deSAN(posicao, sans.get(i));
+        }
+        return lances;
+    }
+
+    private static boolean satisfaz(int lance, int[] melhores, int[] evitar) {
+        if (lance == Lance.NENHUM) {
+            return false;
+        }
+        for (int evitado : evitar) {
+            if (evitado == lance) {
+                return false;
+            }
+        }
+        if (melhores.length == 0) {
+            return true; // Só operações am: qualquer outro lance resolve.
+        }
+        for (int melhor : melhores) {
+            if (melhor == lance) {
+                return true;
+            }
+        }
+        return false;
+    }
+    //endregion
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.out.println("Uso: ExecutorEPD arquivo.epd [-t ms] [-n nós] [-p profundidade] [-j threads] [-hash MB]");
+            return;
+        }
+
+        long tempoMs = 0;
+        long limiteNos = 0;
+        int profundidade = Busca.MAX_PLY - 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int megabytes = 16;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-t" -> tempoMs = Long.parseLong(args[i + 1]);
+                case "-n" -> limiteNos = Long.parseLong(args[i + 1]);
+                case "-p" -> profundidade = Integer.parseInt(args[i + 1]);
+                case "-j" -> threads = Integer.parseInt(args[i + 1]);
+                case "-hash" -> megabytes = Integer.parseInt(args[i + 1]);
+                default -> System.out.println("Opção desconhecida: " + args[i]);
+            }
+        }
+        if (tempoMs <= 0 && limiteNos <= 0 && profundidade >= Busca.MAX_PLY - 1) {
+            tempoMs = 1000; // Sem nenhum limite a busca não terminaria.
+        }
+
+        List<PosicaoEPD> posicoes = lerArquivo(Path.of(args[0]));
+        ExecutorEPD executor = new ExecutorEPD(threads, tempoMs, limiteNos, profundidade, megabytes);
+
+        long inicio = System.nanoTime();
+        List<Resultado> resultados = executor.executar(posicoes);
+        long parede = System.nanoTime() - inicio;
+
+        int resolvidas = 0;
+        long nanosSolucao = 0;
+        long nos = 0;
+        long nanosCpu = 0;
+        for (Resultado r : resultados) {
+            PosicaoEPD p = r.getPosicao();
+            String esperado = p.getMelhores().isEmpty() ? "am " + p.getEvitar() : "bm " + p.getMelhores();
+            System.out.printf("[%s] %s %-8s (%s) prof %d, %d nós%s%n", p.getId(),
+                    r.isResolvida() ? "resolvida" : "FALHOU   ", r.getLance(), esperado, r.getProfundidade(),
+                    r.getNos(), r.isResolvida() ? String.format(", em %.3fs", r.getNanosAteSolucao() / 1e9) : "");
+            if (r.isResolvida()) {
+                resolvidas++;
+                nanosSolucao += r.getNanosAteSolucao();
+            }
+            nos += r.getNos();
+            nanosCpu += r.getNanos();
+        }
+
+        System.out.println();
+        System.out.printf("Resolvidas: %d/%d (%.1f%%)%n", resolvidas, resultados.size(),
+                resultados.isEmpty() ? 0.0 : 100.0 * resolvidas / resultados.size());
+        if (resolvidas > 0) {
+            System.out.printf("Tempo médio até a solução: %.3fs%n", nanosSolucao / 1e9 / resolvidas);
+        }
+        System.out.printf("Nós: %d em %.1fs de busca => %.0f nós/s por thread; %.0f nós/s no total (%d threads, %.1fs)%n",
+                nos, nanosCpu / 1e9, nanosCpu == 0 ? 0.0 : nos / (nanosCpu / 1e9), nos / (parede / 1e9), threads,
+                parede / 1e9);
+    }
+}
@@ -0,0 +1,163 @@
+package motor;
+
+import Tabuleiro.Lance;
+import Tabuleiro.Material;
+import Tabuleiro.Posicao;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static Tabuleiro.Material.*;
+import static Tabuleiro.Tabuleiro.BRANCO;
+import static Tabuleiro.Tabuleiro.PRETO;
+import static pecas.Peca.*;
+
+/**
+ * Avaliadores especializados de finais, escolhidos pela chave de {@link Material} da posição.
+ * <p>
+ * Finais com assinatura exata (KBNK, KQKR, KRKB, KRKN) ficam num mapa indexado pela chave; rei sozinho contra
+ * material de mate usa o avaliador genérico KXK, que empurra o rei fraco para a borda e aproxima os reis.
+ * Posições sem avaliador especializado devolvem {@link #SEM_AVALIADOR} e seguem para a avaliação normal.
+ */
+public final class Finais {
+    public static final int SEM_AVALIADOR = Integer.MIN_VALUE;
+
+    // Bônus de vitória conhecida: acima de qualquer vantagem posicional e bem abaixo das notas de mate.
+    public static final int VITORIA_CONHECIDA = 10000;
+
+    @FunctionalInterface
+    private interface AvaliadorFinal {
+        int avaliar(Posicao posicao, int forte); // Nota do ponto de vista do lado forte.
+    }
+
+    private record Entrada(AvaliadorFinal avaliador, int forte) {
+    }
+
+    private static final Map<Long, Entrada> ESPECIFICOS = new HashMap<>();
+
+    static {
+        for (int forte = BRANCO; forte <= PRETO; forte++) {
+            int fraco = forte ^ 1;
+            for (int bispo = BISPOS_CLAROS; bispo <= BISPOS_ESCUROS; bispo++) {
+                registrar(de(forte, bispo, 1) | de(forte, CAVALOS, 1), Finais::kbnk, forte);
+                registrar(de(forte, TORRES, 1) | de(fraco, bispo, 1), Finais::krkm, forte);
+            }
+            registrar(de(forte, TORRES, 1) | de(fraco, CAVALOS, 1), Finais::krkm, forte);
+            registrar(de(forte, RAINHAS, 1) | de(fraco, TORRES, 1), Finais::kqkr, forte);
+        }
+    }
+
+    private Finais() {
+    }
+
+    private static void registrar(long chave, AvaliadorFinal avaliador, int forte) {
+        ESPECIFICOS.put(chave, new Entrada(avaliador, forte));
+    }
+
+    /**
+     * Nota do ponto de vista de quem joga, ou {@link #SEM_AVALIADOR} se a posição não é um final conhecido.
+     */
+    public static int avaliar(Posicao posicao) {
+        long chave = posicao.getMaterial();
+        if (Material.insuficiente(chave)) {
+            return 0;
+        }
+
+        int forte;
+        int nota;
+        Entrada entrada = ESPECIFICOS.get(chave);
+        if (entrada != null) {
+            forte = entrada.forte();
+            nota = entrada.avaliador().avaliar(posicao, forte);
+        } else if (soRei(chave, PRETO) && temMaterialDeMate(chave, BRANCO)) {
+            forte = BRANCO;
+            nota = kxk(posicao, forte);
+        } else if (soRei(chave, BRANCO) && temMaterialDeMate(chave, PRETO)) {
+            forte = PRETO;
+            nota = kxk(posicao, forte);
+        } else {
+            return SEM_AVALIADOR;
+        }
+        return (posicao.getVez() == forte) ? nota : -nota;
+    }
+
+    // Torre, dama ou par de bispos forçam mate sem depender de peões (bispo e cavalo tem avaliador próprio).
+    private static boolean temMaterialDeMate(long chave, int cor) {
+        return contar(chave, cor, TORRES) + contar(chave, cor, RAINHAS) > 0
+                || (contar(chave, cor, BISPOS_CLAROS) > 0 && contar(chave, cor, BISPOS_ESCUROS) > 0);
+    }
+
+    // Rei e material de mate contra rei sozinho.
+    private static int kxk(Posicao posicao, int forte) {
+        long chave = posicao.getMaterial();
+        int material = contar(chave, forte, PEOES) * Avaliacao.VALOR[PEAO]
+                + contar(chave, forte, CAVALOS) * Avaliacao.VALOR[CAVALO]
+                + (contar(chave, forte, BISPOS_CLAROS) + contar(chave, forte, BISPOS_ESCUROS)) * Avaliacao.VALOR[BISPO]
+                + contar(chave, forte, TORRES) * Avaliacao.VALOR[TORRE]
+                + contar(chave, forte, RAINHAS) * Avaliacao.VALOR[RAINHA];
+        int reiForte = posicao.getCasaRei(forte);
+        int reiFraco = posicao.getCasaRei(forte ^ 1);
+        return VITORIA_CONHECIDA + material + paraBorda(reiFraco) + aproximar(reiForte, reiFraco);
+    }
+
+    // Bispo e cavalo: o mate só sai num canto da cor do bispo.
+    private static int kbnk(Posicao posicao, int forte) {
+        int reiForte = posicao.getCasaRei(forte);
+        int reiFraco = posicao.getCasaRei(forte ^ 1);
+        boolean bispoClaro = contar(posicao.getMaterial(), forte, BISPOS_CLAROS) > 0;
+
+        // a1 e h8 são casas escuras; a8 e h1, claras.
+        int canto = bispoClaro
+                ? Math.min(distancia(reiFraco, Lance.casa(0, 7)), distancia(reiFraco, Lance.casa(7, 0)))
+                : Math.min(distancia(reiFraco, Lance.casa(0, 0)), distancia(reiFraco, Lance.casa(7, 7)));
+        return VITORIA_CONHECIDA + Avaliacao.VALOR[BISPO] + Avaliacao.VALOR[CAVALO]
+                + (7 - canto) * 30 + aproximar(reiForte, reiFraco);
+    }
+
+    // Dama contra torre: ganho, mas só empurrando o rei para a borda.
+    private static int kqkr(Posicao posicao, int forte) {
+        int reiForte = posicao.getCasaRei(forte);
+        int reiFraco = posicao.getCasaRei(forte ^ 1);
+        return VITORIA_CONHECIDA + Avaliacao.VALOR[RAINHA] - Avaliacao.VALOR[TORRE]
+                + paraBorda(reiFraco) + aproximar(reiForte, reiFraco);
+    }
+
+    // Torre contra peça menor: em geral empate; a nota só premia o rei fraco na borda e a peça longe do seu rei.
+    private static int krkm(Posicao posicao, int forte) {
+        int fraco = forte ^ 1;
+        int reiFraco = posicao.getCasaRei(fraco);
+        int nota = paraBorda(reiFraco) / 4;
+        int cavalo = acharPeca(posicao, CAVALO, fraco);
+        if (cavalo >= 0) {
+            nota += distancia(reiFraco, cavalo) * 8;
+        }
+        return nota;
+    }
+
+    private static int acharPeca(Posicao posicao, int tipo, int cor) {
+        int procurada = Posicao.criarPeca(tipo, cor);
+        for (int casa = 0; casa < 64; casa++) {
+            if (posicao.getPeca(casa) == procurada) {
+                return casa;
+            }
+        }
+        return -1;
+    }
+
+    // Distância de rei (Chebyshev) entre duas casas.
+    private static int distancia(int a, int b) {
+        return Math.max(Math.abs(Lance.coluna(a) - Lance.coluna(b)), Math.abs(Lance.fileira(a) - Lance.fileira(b)));
+    }
+
+    // 0 no centro, até 60 nos cantos.
+    private static int paraBorda(int casa) {
+        int coluna = Lance.coluna(casa);
+        int fileira = Lance.fileira(casa);
+        int centro = Math.max(3 - coluna, coluna - 4) + Math.max(3 - fileira, fileira - 4);
+        return centro * 10;
+    }
+
+    private static int aproximar(int reiForte, int reiFraco) {
+        return (7 - distancia(reiForte, reiFraco)) * 10;
+    }
+}
@@ -0,0 +1,9 @@
+package motor;
+
+/**
+ * Recebe o resultado de cada iteração completa do aprofundamento iterativo.
+ */
+@FunctionalInterface
+public interface OuvinteBusca {
+    void iteracaoCompleta(int profundidade, int lance, int pontuacao, long nos, long nanos);
+}
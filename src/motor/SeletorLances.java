@@ -0,0 +1,188 @@
+package motor;
+
+import Tabuleiro.Lance;
+import Tabuleiro.Posicao;
+
+import static pecas.Peca.*;
+
+/**
+ * Entrega os lances de um nó da busca aos poucos, em fases, gerando cada grupo só quando o anterior acabou:
+ * lance da tabela, capturas e promoções a dama (MVV-LVA), lances matadores e por fim os lances quietos. Num corte
+ * beta logo no lance da tabela ou numa captura, os quietos nem chegam a ser gerados.
+ * <p>
+ * Os lances saem pseudo-legais, e quem chama ainda testa o rei; em xeque saem as evasões, que já são legais.
+ * Cada ply da busca tem o seu seletor.
+ */
+final class SeletorLances {
+    private static final int TABELA = 0;
+    private static final int GERAR_CAPTURAS = 1;
+    private static final int CAPTURAS = 2;
+    private static final int MATADOR_1 = 3;
+    private static final int MATADOR_2 = 4;
+    private static final int GERAR_QUIETOS = 5;
+    private static final int QUIETOS = 6;
+    private static final int EVASOES = 7;
+    private static final int FIM = 8;
+
+    private final Posicao posicao;
+    private final int[] lances = new int[Posicao.MAX_LANCES];
+    private final int[] notas = new int[Posicao.MAX_LANCES];
+
+    private int fase;
+    private int atual;
+    private int total;
+    private boolean apenasCapturas;
+    private int lanceTabela;
+    private int matador1;
+    private int matador2;
+
+    SeletorLances(Posicao posicao) {
+        this.posicao = posicao;
+    }
+
+    /**
+     * Prepara o seletor para um nó da busca principal. Em xeque, gera as evasões já de uma vez e as ordena pelas
+     * mesmas prioridades das fases.
+     */
+    void iniciar(int lanceTabela, int matador1, int matador2, boolean emXeque) {
+        this.lanceTabela = lanceTabela;
+        this.matador1 = matador1;
+        this.matador2 = matador2;
+        apenasCapturas = false;
+        atual = 0;
+        if (emXeque) {
+            total = posicao.gerarEvasoes(lances);
+            for (int i = 0; i < total; i++) {
+                int lance = lances[i];
+                if (lance == lanceTabela) {
+                    notas[i] = 1_000_000;
+                } else if (posicao.ehCaptura(lance)) {
+                    notas[i] = notaCaptura(lance);
+                } else if (lance == matador1 || lance == matador2) {
+                    notas[i] = 80_000;
+                } else {
+                    notas[i] = 0;
+                }
+            }
+            fase = EVASOES;
+        } else {
+            fase = TABELA;
+        }
+    }
+
+    /**
+     * Prepara o seletor para a busca quiescente: só capturas e promoções a dama, todas na mesma fase.
+     */
+    void iniciarCapturas() {
+        lanceTabela = Lance.NENHUM;
+        apenasCapturas = true;
+        atual = 0;
+        fase = GERAR_CAPTURAS;
+    }
+
+    /**
+     * O próximo lance, ou {@link Lance#NENHUM} quando não há mais.
+     */
+    int proximo() {
+        while (true) {
+            switch (fase) {
+                case TABELA -> {
+                    fase = GERAR_CAPTURAS;
+                    if (posicao.ehPseudoLegal(lanceTabela)) {
+                        return lanceTabela;
+                    }
+                }
+                case GERAR_CAPTURAS -> {
+                    total = posicao.gerarCapturas(lances);
+                    for (int i = 0; i < total; i++) {
+                        notas[i] = (Lance.promocao(lances[i]) == RAINHA && !posicao.ehCaptura(lances[i]))
+                                ? 90_000 : notaCaptura(lances[i]);
+                    }
+                    atual = 0;
+                    fase = CAPTURAS;
+                }
+                case CAPTURAS -> {
+                    if (atual == total) {
+                        fase = apenasCapturas ? FIM : MATADOR_1;
+                        continue;
+                    }
+                    int lance = escolherProximo(atual++);
+                    if (lance != lanceTabela) {
+                        return lance;
+                    }
+                }
+                case MATADOR_1 -> {
+                    fase = MATADOR_2;
+                    if (matadorValido(matador1)) {
+                        return matador1;
+                    }
+                }
+                case MATADOR_2 -> {
+                    fase = GERAR_QUIETOS;
+                    if (matador2 != matador1 && matadorValido(matador2)) {
+                        return matador2;
+                    }
+                }
+                case GERAR_QUIETOS -> {
+                    total = posicao.gerarQuietos(lances);
+                    atual = 0;
+                    fase = QUIETOS;
+                }
+                case QUIETOS -> {
+                    if (atual == total) {
+                        fase = FIM;
+                        continue;
+                    }
+                    int lance = lances[atual++];
+                    if (lance != lanceTabela && lance != matador1 && lance != matador2) {
+                        return lance;
+                    }
+                }
+                case EVASOES -> {
+                    if (atual == total) {
+                        fase = FIM;
+                        continue;
+                    }
+                    return escolherProximo(atual++);
+                }
+                default -> {
+                    return Lance.NENHUM;
+                }
+            }
+        }
+    }
+
+    /**
+     * Se o lance é um quieto que pode ser jogado aqui. Um lance quieto é a única coisa que vira matador, mas na
+     * posição de agora o destino pode estar ocupado; aí ele já saiu (ou sai) como captura.
+     */
+    private boolean matadorValido(int lance) {
+        return lance != Lance.NENHUM && lance != lanceTabela && !posicao.ehCaptura(lance)
+                && Lance.promocao(lance) != RAINHA && posicao.ehPseudoLegal(lance);
+    }
+
+    private int notaCaptura(int lance) {
+        int vitima = Posicao.tipo(posicao.getPeca(Lance.destino(lance)));
+        int atacante = Posicao.tipo(posicao.getPeca(Lance.origem(lance)));
+        return 100_000 + Avaliacao.VALOR[vitima == 0 ? PEAO : vitima] * 10 - atacante;
+    }
+
+    // Seleção parcial: traz o lance de maior nota para a posição i e o devolve.
+    private int escolherProximo(int i) {
+        int melhor = i;
+        for (int j = i + 1; j < total; j++) {
+            if (notas[j] > notas[melhor]) {
+                melhor = j;
+            }
+        }
+        if (melhor != i) {
+            int lance = lances[i];
+            lances[i] = lances[melhor];
+            lances[melhor] = lance;
+            int nota = notas[i];
+            notas[i] = notas[melhor];
+            notas[melhor] = nota;
+        }
+        return lances[i];
+    }
+}
@@ -0,0 +1,83 @@
+package motor;
+
+import java.util.Arrays;
+
+/**
+ * Tabela de transposição de substituição simples, em dois arrays de long para não criar um objeto por entrada.
+ * <p>
+ * Cada entrada guarda o hash completo e um long empacotado com lance (16 bits), pontuação (16 bits com sinal),
+ * profundidade (8 bits) e tipo de limite (2 bits). Uma consulta devolve 0 quando não há entrada.
+ * Não é segura para várias threads; cada busca usa a sua.
+ */
+public class TabelaTransposicao {
+    public static final int EXATO = 1;
+    public static final int INFERIOR = 2; // A pontuação real é >= à guardada (corte beta).
+    public static final int SUPERIOR = 3; // A pontuação real é <= à guardada (nenhum lance passou de alfa).
+
+    private static final int BYTES_POR_ENTRADA = 16;
+    private static final long MAXIMO_ENTRADAS = 1L << 30; // Maior potência de dois que cabe num array.
+
+    private final long[] chaves;
+    private final long[] dados;
+    private final int mascara;
+
+    public TabelaTransposicao(int megabytes) {
+        int entradas = entradas(megabytes);
+        this.chaves = new long[entradas];
+        this.dados = new long[entradas];
+        this.mascara = entradas - 1;
+    }
+
+    /**
+     * Quantas entradas cabem em {@code megabytes}, arredondado para baixo até uma potência de dois e limitado ao
+     * maior array possível.
+     *
+     * @throws IllegalArgumentException se {@code megabytes} não é positivo
+     */
+    public static int entradas(int megabytes) {
+        if (megabytes <= 0) {
+            throw new IllegalArgumentException("Tamanho de tabela inválido: " + megabytes + " MB");
+        }
+        long entradas = (long) megabytes * (1024 * 1024 / BYTES_POR_ENTRADA);
+        return (int) Long.highestOneBit(Math.min(entradas, MAXIMO_ENTRADAS));
+    }
+
+    public long consultar(long hash) {
+        int indice = (int) hash & mascara;
+        return chaves[indice] == hash ? dados[indice] : 0;
+    }
+
+    public void gravar(long hash, int lance, int pontuacao, int profundidade, int tipo) {
+        int indice = (int) hash & mascara;
+        // Mantém a entrada mais profunda da mesma posição; posições diferentes sempre substituem.
+        if (chaves[indice] == hash && profundidade(dados[indice]) > profundidade) {
+            return;
+        }
+        chaves[indice] = hash;
+        dados[indice] = (lance & 0xFFFFL)
+                | ((pontuacao & 0xFFFFL) << 16)
+                | ((long) (profundidade & 0xFF) << 32)
+                | ((long) tipo << 40);
+    }
+
+    public void limpar() {
+        Arrays.fill(chaves, 0);
+        Arrays.fill(dados, 0);
+    }
+
+    public static int lance(long dados) {
+        return (int) (dados & 0xFFFF);
+    }
+
+    public static int pontuacao(long dados) {
+        return (short) (dados >>> 16);
+    }
+
+    public static int profundidade(long dados) {
+        return (int) ((dados >>> 32) & 0xFF);
+    }
+
+    public static int tipo(long dados) {
+        return (int) ((dados >>> 40) & 0x3);
+    }
+}
@@ -14,7 +14,7 @@ import static Tabuleiro.Tabuleiro.FILEIRAS;
 public class Bispo extends Peca{
 
     public Bispo(int coluna, int fileira, int cor){
-        super(coluna, fileira, cor);
+        super(coluna, fileira, cor, BISPO);
         super.tipo = (super.cor == BRANCO) ? '♝' : '♗';  //notação em inglês (Bishop).
         super.casasLegais = new ArrayList<>(14);
     }
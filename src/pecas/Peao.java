@@ -10,22 +10,14 @@ import static Tabuleiro.Casa.BY_WHITE;
 import static Tabuleiro.Tabuleiro.*;
 
 public class Peao extends Peca{
-    private int jogadaDuasCasas = -13;
     private Peao alvoEnPassant = null;
 
     public Peao(int coluna, int fileira, int cor){
-        super(coluna, fileira, cor);
+        super(coluna, fileira, cor, PEAO);
         super.tipo = (super.cor == BRANCO) ? '♟' : '♙';  //notação em inglês (Pawn).
         super.casasLegais = new ArrayList<>(4);
     }
 
-    public void setJogadaDuasCasas(int jogadaDuasCasas) {
-        this.jogadaDuasCasas = jogadaDuasCasas;
-    }
-    public int getJogadaDuasCasas() {
-        return jogadaDuasCasas;
-    }
-
     public Peao getAlvoEnPassant() {
         return alvoEnPassant;
     }
@@ -148,7 +140,7 @@ public class Peao extends Peca{
                 if (pecaNaCasa instanceof Peao) {
                     int corPecaNaCasa = pecaNaCasa.getCor();
 
-                    if (((Peao) pecaNaCasa).getJogadaDuasCasas() == Tabuleiro.getJogadas() - 1) {
+                    if (Tabuleiro.getCasaEnPassant() == casaCaptura.getIndice()) {
                         if (corPecaNaCasa != super.getCor()) {
                             this.alvoEnPassant = ((Peao) pecaNaCasa);
                             super.casasLegais.add(casaCaptura); //Peão inimigo em posição de captura.
@@ -171,7 +163,7 @@ public class Peao extends Peca{
                 if (pecaNaCasa instanceof Peao) {
                     int corPecaNaCasa = pecaNaCasa.getCor();
 
-                    if (((Peao) pecaNaCasa).getJogadaDuasCasas() == Tabuleiro.getJogadas() - 1) {
+                    if (Tabuleiro.getCasaEnPassant() == casaCaptura.getIndice()) {
                         if (corPecaNaCasa != super.getCor()) {
                             this.alvoEnPassant = ((Peao) pecaNaCasa);
                             super.casasLegais.add(casaCaptura); //Peão inimigo em posição de captura.
@@ -5,6 +5,8 @@ import Tabuleiro.Tabuleiro;
 
 import java.util.ArrayList;
 
+import static Tabuleiro.Casa.BY_BLACK;
+import static Tabuleiro.Casa.BY_WHITE;
 import static Tabuleiro.Tabuleiro.*;
 
 public abstract class Peca {
@@ -15,22 +17,32 @@ public abstract class Peca {
     protected ArrayList<Casa> casasLegais;
     protected boolean jaMoveu;
     protected boolean estaCravada;
+    private final int codigo;
 
     protected static final int X = 0;
     protected static final int Y = 1;
 
-    public Peca(int coluna, int fileira, int cor){
+    // Códigos primitivos de tipo, compartilhados com o hash Zobrist e a codificação de lances.
+    public static final int PEAO = 1;
+    public static final int CAVALO = 2;
+    public static final int BISPO = 3;
+    public static final int TORRE = 4;
+    public static final int RAINHA = 5;
+    public static final int REI = 6;
+
+    public Peca(int coluna, int fileira, int cor, int codigo){
         Casa casaInicial = Tabuleiro.getCasa(coluna, fileira);
 
         this.pos[X] = coluna;
         this.pos[Y] = fileira;
         this.cor = cor;
+        this.codigo = codigo;
         this.casa = casaInicial;    //Setta a casa correspondente como a sua casa.
         casaInicial.setPeca(this);  //Setta a peça da sua casa como si própria.
         this.jaMoveu = false;
         this.estaCravada = false;
 
-        Tabuleiro.getPecasNoTabuleiro().add(this); //Se adiciona no Array List do Tabuleiro.
+        Tabuleiro.getPecas().adicionar(this); //Se adiciona na lista de peças do Tabuleiro.
     }
 
     public int[] getPos() {
@@ -72,6 +84,14 @@ public abstract class Peca {
         return tipo;
     }
 
+    /**
+     * O código primitivo do tipo ({@link #PEAO} a {@link #REI}). Guardado num campo, e não sobrescrito em cada
+     * subclasse, para que ler o tipo não seja uma chamada virtual.
+     */
+    public final int getCodigo() {
+        return codigo;
+    }
+
     public int getCor() {
         return cor;
     }
@@ -85,6 +105,30 @@ public abstract class Peca {
 
     public abstract void setCasasLegais();
 
+    /**
+     * Casas alcançadas por salto (cavalo, rei), vindas de {@link Tabuleiro.Ataques}: todas ficam atacadas, e as
+     * vazias ou com peça inimiga viram casas legais. Com {@code daXeque}, alcançar o rei inimigo conta como xeque.
+     */
+    protected void adicionarSaltos(long alvos, boolean daXeque) {
+        ArrayList<Casa> arrayCorrespondente = (this.getCor() == BRANCO) ? casasLegaisPecasBrancas : casasLegaisPecasPretas;
+        int byCorAtual = (this.getCor() == BRANCO) ? BY_WHITE : BY_BLACK;
+
+        for (; alvos != 0; alvos &= alvos - 1) {
+            Casa casaTeste = Tabuleiro.getCasa(Long.numberOfTrailingZeros(alvos));
+            Peca pecaNaCasa = casaTeste.getPeca();
+
+            if (pecaNaCasa == null || pecaNaCasa.getCor() != this.getCor()) {
+                casasLegais.add(casaTeste);
+                arrayCorrespondente.add(casaTeste);
+                if (daXeque && pecaNaCasa instanceof Rei) {
+                    ((Rei) pecaNaCasa).setIsInCheck(true);
+                    ((Rei) pecaNaCasa).incPecasAtacantes();
+                }
+            }
+            casaTeste.setAtacked(byCorAtual);
+        }
+    }
+
     public void filtrarCasasLegais(){
 
         //Checagem de cheque duplo
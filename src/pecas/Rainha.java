@@ -12,7 +12,7 @@ import static Tabuleiro.Tabuleiro.*;
 public class Rainha extends Peca{
 
     public Rainha(int coluna, int fileira, int cor){
-        super(coluna, fileira, cor);
+        super(coluna, fileira, cor, RAINHA);
         super.tipo = (super.cor == BRANCO) ? '♛' : '♕';  //notação em inglês (Queen).
         super.casasLegais = new ArrayList<>(28);
     }
@@ -1,7 +1,10 @@
 package pecas;
 
+import Tabuleiro.Ataques;
 import Tabuleiro.Casa;
+import Tabuleiro.Lance;
 import Tabuleiro.Tabuleiro;
+import Tabuleiro.Zobrist;
 
 import java.util.ArrayList;
 
@@ -14,172 +17,15 @@ public class Rei extends Peca {
     private boolean isInCheck = false;
 
     public Rei(int coluna, int fileira, int cor) {
-        super(coluna, fileira, cor);
+        super(coluna, fileira, cor, REI);
         super.tipo = (super.cor == BRANCO) ? '♚' : '♔';
         super.casasLegais = new ArrayList<>(10);
-
-        if (super.cor == BRANCO) {
-            setReiBranco(this);
-        } else {
-            setReiPreto(this);
-        }
     }
 
     @Override
     public void setCasasLegais() {
         super.casasLegais.clear();
-        ArrayList<Casa> arrayCorrespondente = (this.getCor() == BRANCO) ? casasLegaisPecasBrancas
-                : casasLegaisPecasPretas;
-
-        int byCorAtual = (super.getCor() == BRANCO) ? BY_WHITE : BY_BLACK;
-
-        // Movimentos para direita
-        int idColuna = super.getColuna() + 1;
-        if (idColuna < 8) {
-            Casa casaNaFileira = Tabuleiro.getCasa(idColuna, super.getFileira());
-            Peca pecaNaFileira = casaNaFileira.getPeca();
-
-            if (pecaNaFileira == null) {
-                super.casasLegais.add(casaNaFileira);
-                arrayCorrespondente.add(casaNaFileira);
-            } else {
-                if (pecaNaFileira.getCor() != super.getCor()) {
-                    super.casasLegais.add(casaNaFileira);
-                    arrayCorrespondente.add(casaNaFileira);
-                }
-            }
-            casaNaFileira.setAtacked(byCorAtual);
-        }
-
-        // Movimentos para esquerda
-        idColuna = super.getColuna() - 1;
-        if (idColuna >= 0) {
-            Casa casaNaFileira = Tabuleiro.getCasa(idColuna, super.getFileira());
-            Peca pecaNaFileira = casaNaFileira.getPeca();
-
-            if (pecaNaFileira == null) {
-                super.casasLegais.add(casaNaFileira);
-                arrayCorrespondente.add(casaNaFileira);
-            } else {
-                if (pecaNaFileira.getCor() != super.getCor()) {
-                    super.casasLegais.add(casaNaFileira);
-                    arrayCorrespondente.add(casaNaFileira);
-                }
-            }
-            casaNaFileira.setAtacked(byCorAtual);
-        }
-
-        // Movimentos para cima
-        int idFileira = super.getFileira() + 1;
-        if (idFileira < 8) {
-            Casa casaNaColuna = Tabuleiro.getCasa(super.getColuna(), idFileira);
-            Peca pecaNaColuna = casaNaColuna.getPeca();
-
-            if (pecaNaColuna == null) {
-                super.casasLegais.add(casaNaColuna);
-                arrayCorrespondente.add(casaNaColuna);
-            } else {
-                if (pecaNaColuna.getCor() != super.getCor()) {
-                    super.casasLegais.add(casaNaColuna);
-                    arrayCorrespondente.add(casaNaColuna);
-                }
-            }
-            casaNaColuna.setAtacked(byCorAtual);
-        }
-
-        // Movimentos para baixo
-        idFileira = super.getFileira() - 1;
-        if (idFileira >= 0) {
-            Casa casaNaColuna = Tabuleiro.getCasa(super.getColuna(), idFileira);
-            Peca pecaNaColuna = casaNaColuna.getPeca();
-
-            if (pecaNaColuna == null) {
-                super.casasLegais.add(casaNaColuna);
-                arrayCorrespondente.add(casaNaColuna);
-            } else {
-                if (pecaNaColuna.getCor() != super.getCor()) {
-                    super.casasLegais.add(casaNaColuna);
-                    arrayCorrespondente.add(casaNaColuna);
-                }
-            }
-            casaNaColuna.setAtacked(byCorAtual);
-        }
-
-        // Movimento para diagonal direita superior
-        idColuna = super.getColuna() + 1;
-        idFileira = super.getFileira() + 1;
-        if (idColuna < 8 && idFileira < 8) {
-            Casa casaNaDiagonal = Tabuleiro.getCasa(idColuna, idFileira);
-            Peca pecaNaDiagonal = casaNaDiagonal.getPeca();
-
-            if (pecaNaDiagonal == null) {
-                super.casasLegais.add(casaNaDiagonal);
-                arrayCorrespondente.add(casaNaDiagonal);
-            } else {
-                if (pecaNaDiagonal.getCor() != super.getCor()) {
-                    super.casasLegais.add(casaNaDiagonal);
-                    arrayCorrespondente.add(casaNaDiagonal);
-                }
-            }
-            casaNaDiagonal.setAtacked(byCorAtual);
-        }
-
-        // Movimento para diagonal esquerda superior
-        idColuna = super.getColuna() - 1;
-        idFileira = super.getFileira() + 1;
-        if (idColuna >= 0 && idFileira < 8) {
-            Casa casaNaDiagonal = Tabuleiro.getCasa(idColuna, idFileira);
-            Peca pecaNaDiagonal = casaNaDiagonal.getPeca();
-
-            if (pecaNaDiagonal == null) {
-                super.casasLegais.add(casaNaDiagonal);
-                arrayCorrespondente.add(casaNaDiagonal);
-            } else {
-                if (pecaNaDiagonal.getCor() != super.getCor()) {
-                    super.casasLegais.add(casaNaDiagonal);
-                    arrayCorrespondente.add(casaNaDiagonal);
-                }
-            }
-            casaNaDiagonal.setAtacked(byCorAtual);
-        }
-
-        // Movimento para diagonal esquerda inferior
-        idColuna = super.getColuna() - 1;
-        idFileira = super.getFileira() - 1;
-        if (idColuna >= 0 && idFileira >= 0) {
-            Casa casaNaDiagonal = Tabuleiro.getCasa(idColuna, idFileira);
-            Peca pecaNaDiagonal = casaNaDiagonal.getPeca();
-
-            if (pecaNaDiagonal == null) {
-                super.casasLegais.add(casaNaDiagonal);
-                arrayCorrespondente.add(casaNaDiagonal);
-            } else {
-                if (pecaNaDiagonal.getCor() != super.getCor()) {
-                    super.casasLegais.add(casaNaDiagonal);
-                    arrayCorrespondente.add(casaNaDiagonal);
-                }
-            }
-            casaNaDiagonal.setAtacked(byCorAtual);
-        }
-
-        // Movimento para diagonal direita inferior
-        idColuna = super.getColuna() + 1;
-        idFileira = super.getFileira() - 1;
-        if (idColuna < 8 && idFileira >= 0) {
-            Casa casaNaDiagonal = Tabuleiro.getCasa(idColuna, idFileira);
-            Peca pecaNaDiagonal = casaNaDiagonal.getPeca();
-
-            if (pecaNaDiagonal == null) {
-                super.casasLegais.add(casaNaDiagonal);
-                arrayCorrespondente.add(casaNaDiagonal);
-            } else {
-                if (pecaNaDiagonal.getCor() != super.getCor()) {
-                    super.casasLegais.add(casaNaDiagonal);
-                    arrayCorrespondente.add(casaNaDiagonal);
-                }
-            }
-            casaNaDiagonal.setAtacked(byCorAtual);
-        }
+        adicionarSaltos(Ataques.rei(Lance.casa(getColuna(), getFileira())), false);
 
         // Castling Logic Integration
         canCastleToTheLeft();
@@ -218,33 +64,26 @@ public class Rei extends Peca {
         return isInCheck;
     }
 
+    /**
+     * Mate e afogamento só valem para o rei do lado da vez, e são decididos pela {@code Posicao}: basta
+     * achar um lance legal, sem depender das listas de casas legais.
+     */
     public boolean isCheckmated() {
-        ArrayList<Casa> arrayCorrespondente = (super.getCor() == BRANCO) ? casasLegaisPecasBrancas
-                : casasLegaisPecasPretas;
-
-        if (arrayCorrespondente.isEmpty()) {
-            if (this.isInCheck()) {
-                return true;
-            }
-        }
-        return false;
+        return ehDaVez() && Tabuleiro.emXeque() && !Tabuleiro.temLanceLegal();
     }
 
     public boolean isStalemate() {
-        ArrayList<Casa> arrayCorrespondente = (super.getCor() == BRANCO) ? casasLegaisPecasBrancas
-                : casasLegaisPecasPretas;
+        return ehDaVez() && !Tabuleiro.emXeque() && !Tabuleiro.temLanceLegal();
+    }
 
-        if (arrayCorrespondente.isEmpty()) {
-            if (!this.isInCheck()) {
-                return true;
-            }
-        }
-        return false;
+    private boolean ehDaVez() {
+        return super.getCor() == ((Tabuleiro.getJogadas() % 2 == 0) ? BRANCO : PRETO);
     }
 
     public boolean canCastleToTheLeft() {
         Peca peca = Tabuleiro.getCasa(COLUNA_A, super.getFileira()).getPeca(); // cria uma instância de peca na coluna A
-        if (this.isInCheck() || super.jaMoveu || (peca instanceof Torre && peca.jaMoveu())) {
+        int direito = (super.getCor() == BRANCO) ? Zobrist.ROQUE_BRANCO_LONGO : Zobrist.ROQUE_PRETO_LONGO;
+        if (this.isInCheck() || (Tabuleiro.getDireitosDeRoque() & direito) == 0) {
             return false;
         } else {
             if (!isPathClear(super.getColuna() - 1, COLUNA_B, -1)) {
@@ -263,7 +102,8 @@ public class Rei extends Peca {
 
     public boolean canCastleToTheRight() {
         Peca peca = Tabuleiro.getCasa(COLUNA_H, super.getFileira()).getPeca(); // cria uma instância de peca na coluna H
-        if (this.isInCheck() || super.jaMoveu || (peca instanceof Torre && peca.jaMoveu())) {
+        int direito = (super.getCor() == BRANCO) ? Zobrist.ROQUE_BRANCO_CURTO : Zobrist.ROQUE_PRETO_CURTO;
+        if (this.isInCheck() || (Tabuleiro.getDireitosDeRoque() & direito) == 0) {
             return false;
         } else {
             if (!isPathClear(super.getColuna() + 1, COLUNA_G, 1)) {
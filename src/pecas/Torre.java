@@ -12,7 +12,7 @@ import static Tabuleiro.Tabuleiro.*;
 public class Torre extends Peca{
 
     public Torre(int coluna, int fileira, int cor){
-        super(coluna, fileira, cor);
+        super(coluna, fileira, cor, TORRE);
         super.tipo = (super.cor == BRANCO) ? '♜' : '♖';  //notação em inglês (Rook).
         super.casasLegais = new ArrayList<>(14);
     }
@@ -0,0 +1,191 @@
+package persistencia;
+
+import Tabuleiro.Lance;
+import Tabuleiro.Notacao;
+import Tabuleiro.Posicao;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static Tabuleiro.Tabuleiro.BRANCO;
+
+/**
+ * Converte entre PGN e o {@link FormatoPartida} binário.
+ * <p>
+ * A leitura aceita comentários ({@code {...}} e {@code ;}), variantes entre parênteses (ignoradas), NAGs e
+ * numeração de lances; cada lance SAN é resolvido pelas regras de {@link Posicao}.
+ *
+ * <pre>
+ * java persistencia.ConversorPGN entrada.pgn saida.cgp
+ * </pre>
+ */
+public final class ConversorPGN {
+
+    private ConversorPGN() {
+    }
+
+    /**
+     * Lê todas as partidas de um texto PGN.
+     *
+     * @throws IllegalArgumentException se um lance não é legal na posição.
+     */
+    public static List<RegistroPartida> lerPGN(BufferedReader leitor) throws IOException {
+        List<RegistroPartida> partidas = new ArrayList<>();
+        List<String[]> etiquetas = new ArrayList<>();
+        StringBuilder lances = new StringBuilder();
+        String linha;
+        while ((linha = leitor.readLine()) != null) {
+            linha = linha.strip();
+            if (linha.startsWith("[")) {
+                if (!lances.isEmpty()) { // Etiquetas depois de lances: começou outra partida sem resultado.
+                    partidas.add(montar(etiquetas, lances));
+                    etiquetas.clear();
+                    lances.setLength(0);
+                }
+                int aspas = linha.indexOf('"');
+                if (aspas > 0) {
+                    etiquetas.add(new String[]{linha.substring(1, aspas).strip(),
+                            linha.substring(aspas + 1, linha.lastIndexOf('"'))});
+                }
+            } else if (!linha.isEmpty() && !linha.startsWith("%")) {
+                lances.append(linha).append('\n');
+            }
+        }
+        if (!lances.isEmpty() || !etiquetas.isEmpty()) {
+            partidas.add(montar(etiquetas, lances));
+        }
+        return partidas;
+    }
+
+    private static RegistroPartida montar(List<String[]> etiquetas, CharSequence texto) {
+        String fen = null;
+        for (String[] etiqueta : etiquetas) {
+            if (etiqueta[0].equals("FEN")) {
+                fen = etiqueta[1];
+            }
+        }
+        RegistroPartida registro = new RegistroPartida(fen);
+        for (String[] etiqueta : etiquetas) {
+            if (!etiqueta[0].equals("FEN") && !etiqueta[0].equals("SetUp")) {
+                registro.setEtiqueta(etiqueta[0], etiqueta[1]);
+            }
+        }
+        String resultado = registro.getEtiquetas().get("Result");
+        if (resultado != null) {
+            registro.setResultado(RegistroPartida.resultadoDe(resultado));
+        }
+
+        Posicao posicao = registro.posicaoInicial();
+        int variantes = 0;
+        int i = 0;
+        while (i < texto.length()) {
+            char c = texto.charAt(i);
+            if (c == '{') {
+                i = fimDe(texto, i, '}') + 1;
+            } else if (c == ';') {
+                i = fimDe(texto, i, '\n');
+            } else if (c == '(') {
+                variantes++;
+                i++;
+            } else if (c == ')') {
+                variantes--;
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else {
+                int inicio = i;
+                while (i < texto.length() && !Character.isWhitespace(texto.charAt(i))
+                        && "{;()".indexOf(texto.charAt(i)) < 0) {
+                    i++;
+                }
+                if (variantes == 0) {
+                    interpretar(texto.subSequence(inicio, i).toString(), posicao, registro);
+                }
+            }
+        }
+        return registro;
+    }
+
+    private static int fimDe(CharSequence texto, int i, char fim) {
+        while (i < texto.length() && texto.charAt(i) != fim) {
+            i++;
+        }
+        return i;
+    }
+
+    private static void interpretar(String token, Posicao posicao, RegistroPartida registro) {
+        if (token.startsWith("$")) {
+            return; // NAG.
+        }
+        if (token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*")) {
+            registro.setResultado(RegistroPartida.resultadoDe(token));
+            return;
+        }
+        // "12." ou "12...": número do lance, talvez grudado no próprio lance ("12.e4").
+        int ponto = token.lastIndexOf('.');
+        if (ponto >= 0 && token.substring(0, ponto).chars().allMatch(c -> Character.isDigit(c) || c == '.')) {
+            token = token.substring(ponto + 1);
+        }
+        if (token.isEmpty()) {
+            return;
+        }
+        int lance = Notacao.deSAN(posicao, token);
+        if (lance == Lance.NENHUM) {
+            throw new IllegalArgumentException("Lance ilegal no PGN: " + token + " em " + posicao.toFEN());
+        }
+        posicao.fazerLance(lance);
+        registro.adicionarLance(lance);
+    }
+
+    /**
+     * Escreve a partida em PGN, com os lances em SAN.
+     */
+    public static String paraPGN(RegistroPartida registro) {
+        StringBuilder pgn = new StringBuilder();
+        for (Map.Entry<String, String> etiqueta : registro.getEtiquetas().entrySet()) {
+            pgn.append('[').append(etiqueta.getKey()).append(" \"").append(etiqueta.getValue()).append("\"]\n");
+        }
+        if (registro.getFenInicial() != null) {
+            pgn.append("[SetUp \"1\"]\n[FEN \"").append(registro.getFenInicial()).append("\"]\n");
+        }
+        pgn.append('\n');
+
+        Posicao posicao = registro.posicaoInicial();
+        for (int i = 0; i < registro.getQuantidadeLances(); i++) {
+            if (posicao.getVez() == BRANCO || i == 0) {
+                pgn.append(posicao.getNumeroLance()).append(posicao.getVez() == BRANCO ? ". " : "... ");
+            }
+            int lance = registro.getLance(i);
+            pgn.append(Notacao.paraSAN(posicao, lance)).append(' ');
+            posicao.fazerLance(lance);
+        }
+        return pgn.append(RegistroPartida.resultadoString(registro.getResultado())).append('\n').toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Uso: java persistencia.ConversorPGN entrada.pgn saida.cgp");
+            return;
+        }
+        Path entrada = Path.of(args[0]);
+        Path saida = Path.of(args[1]);
+        List<RegistroPartida> partidas;
+        try (BufferedReader leitor = Files.newBufferedReader(entrada, StandardCharsets.UTF_8)) {
+            partidas = lerPGN(leitor);
+        }
+        FormatoPartida.gravar(saida, partidas);
+
+        long lances = 0;
+        for (RegistroPartida partida : partidas) {
+            lances += partida.getQuantidadeLances();
+        }
+        System.out.printf("%d partidas, %d lances: %d bytes em PGN -> %d bytes%n",
+                partidas.size(), lances, Files.size(entrada), Files.size(saida));
+    }
+}
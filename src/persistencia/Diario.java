@@ -0,0 +1,401 @@
+package persistencia;
+
+import Tabuleiro.Lance;
+import Tabuleiro.OuvinteLance;
+import Tabuleiro.Posicao;
+import Tabuleiro.Tabuleiro;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Diário de partidas só de acréscimo, em segmentos mapeados em memória, para sobreviver a uma queda do processo.
+ * <p>
+ * Cada lance aceito vira um registro de tamanho fixo copiado direto no segmento mapeado: gravar custa uma cópia
+ * de poucos bytes, sem chamada de sistema. O {@code force()}, que é o que leva tempo, fica com uma thread própria
+ * que descarrega o segmento de tempos em tempos, juntando todos os lances do intervalo numa única ida ao disco.
+ * Um lance só está garantido no disco depois do próximo {@code force()}; o que se perde numa queda do sistema
+ * é no máximo um intervalo. Uma queda só do processo não perde nada, já que as páginas mapeadas ficam com o SO.
+ *
+ * <pre>
+ * segmento: registros até o primeiro byte de tipo zero (o resto do arquivo vem zerado)
+ * registro: byte tipo, byte soma, short tamanho do conteúdo, long partida, long instante (ms), conteúdo
+ * INICIO:   FEN em UTF-8
+ * LANCE:    int meio-lance (desde o INICIO, contando este), short lance ({@link Lance})
+ * FIM:      byte resultado ({@link RegistroPartida})
+ * </pre>
+ *
+ * O tipo é escrito por último, então um registro pela metade tem tipo zero e encerra a leitura do segmento; a
+ * soma (xor dos outros bytes) pega o caso em que só parte das páginas chegou ao disco.
+ * Ao abrir, o diário continua no último segmento se ele ainda tem mais da metade livre, e senão começa um novo;
+ * quando um enche passa para o seguinte. {@link #recuperar} lê todos os segmentos, em ordem, até que quem
+ * regravou no segmento atual tudo o que ainda está ativo chame {@link #apagarSegmentosAnteriores()}.
+ */
+public class Diario implements AutoCloseable {
+    public static final int INICIO = 1;
+    public static final int LANCE = 2;
+    public static final int FIM = 3;
+
+    /**
+     * Id usado para a partida do {@link Tabuleiro} local, que não tem id próprio.
+     */
+    public static final long PARTIDA_LOCAL = 0;
+
+    public static final int TAMANHO_SEGMENTO_PADRAO = 16 * 1024 * 1024;
+    public static final int TAMANHO_SEGMENTO_LOCAL = 1024 * 1024; // Uma partida local cabe com folga.
+    public static final long INTERVALO_FORCE_PADRAO_MS = 20;
+
+    private static final int CABECALHO = 20;
+    private static final String PREFIXO = "diario-";
+    private static final String SUFIXO = ".log";
+
+    private final Path diretorio;
+    private final int tamanhoSegmento;
+    private final ScheduledExecutorService sincronizador;
+
+    // Protegidos pelo monitor do diário.
+    private int numeroSegmento;
+    private FileChannel canal;
+    private MappedByteBuffer segmento;
+    private boolean fechado;
+
+    private volatile boolean sujo;
+
+    public Diario(Path diretorio) throws IOException {
+        this(diretorio, TAMANHO_SEGMENTO_PADRAO, INTERVALO_FORCE_PADRAO_MS);
+    }
+
+    public Diario(Path diretorio, int tamanhoSegmento, long intervaloForceMs) throws IOException {
+        if (tamanhoSegmento < CABECALHO + 256) {
+            throw new IllegalArgumentException("Segmento pequeno demais: " + tamanhoSegmento);
+        }
+        this.diretorio = Files.createDirectories(diretorio);
+        this.tamanhoSegmento = tamanhoSegmento;
+        List<Path> existentes = segmentos(diretorio);
+        numeroSegmento = existentes.isEmpty() ? 0 : numeroDe(existentes.get(existentes.size() - 1));
+        if (existentes.isEmpty() || !reabrirSegmento(existentes.get(existentes.size() - 1))) {
+            abrirSegmento();
+        }
+
+        sincronizador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "diario-force");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sincronizador.scheduleWithFixedDelay(this::descarregar, intervaloForceMs, intervaloForceMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void registrarInicio(long partida, String fen) {
+        byte[] bytes = fen.getBytes(StandardCharsets.UTF_8);
+        int inicio = reservar(bytes.length);
+        segmento.put(inicio + CABECALHO, bytes);
+        selar(inicio, INICIO, partida, bytes.length);
+    }
+
+    public synchronized void registrarLance(long partida, int meioLance, int lance) {
+        int inicio = reservar(6);
+        segmento.putInt(inicio + CABECALHO, meioLance).putShort(inicio + CABECALHO + 4, (short) lance);
+        selar(inicio, LANCE, partida, 6);
+    }
+
+    public synchronized void registrarFim(long partida, int resultado) {
+        int inicio = reservar(1);
+        segmento.put(inicio + CABECALHO, (byte) resultado);
+        selar(inicio, FIM, partida, 1);
+    }
+
+    /**
+     * Um ouvinte que grava os lances do {@link Tabuleiro} como a partida {@link #PARTIDA_LOCAL}.
+     */
+    public OuvinteLance ouvinteTabuleiro() {
+        return new OuvinteLance() {
+            @Override
+            public void partidaIniciada(String fen) {
+                registrarInicio(PARTIDA_LOCAL, fen);
+            }
+
+            @Override
+            public void lanceAceito(int lance, int meioLance) {
+                registrarLance(PARTIDA_LOCAL, meioLance, lance);
+            }
+        };
+    }
+
+    /**
+     * Diretório do diário do jogo local (Main e GUI): {@code -Dtabuleiro.diario=...}, ou {@code diario} no diretório
+     * atual. Não deve ser o mesmo do servidor, já que {@link #abrirPartidaLocal} apaga os segmentos antigos.
+     */
+    public static Path diretorioLocal() {
+        return Path.of(System.getProperty("tabuleiro.diario", "diario"));
+    }
+
+    /**
+     * Abre o diário do jogo local e liga o {@link Tabuleiro} a ele. A partida {@link #PARTIDA_LOCAL} que não
+     * terminou é refeita lance a lance com {@link RegistroPartida#reproduzir()} e carregada no tabuleiro; sem
+     * partida para retomar, o tabuleiro recebe a posição inicial. Daí em diante cada lance aceito por
+     * {@code moverPeca} é gravado.
+     * <p>
+     * O carregamento já grava um INICIO com a posição atual no segmento atual, então os segmentos anteriores são
+     * apagados. O histórico de repetições recomeça na posição retomada. As casas precisam já ter sido criadas.
+     */
+    public static Diario abrirPartidaLocal(Path diretorio) throws IOException {
+        RegistroPartida anterior = recuperar(diretorio).get(PARTIDA_LOCAL);
+        Posicao posicao = null;
+        if (anterior != null) {
+            try {
+                posicao = anterior.reproduzir();
+                System.out.println("Partida retomada do diário: " + posicao.toFEN());
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage() + "; começando uma partida nova.");
+            }
+        }
+
+        Diario diario = new Diario(diretorio, TAMANHO_SEGMENTO_LOCAL, INTERVALO_FORCE_PADRAO_MS);
+        Tabuleiro.setOuvinteLance(diario.ouvinteTabuleiro());
+        Tabuleiro.limpar();
+        if (posicao != null) {
+            Tabuleiro.carregarPosicao(posicao);
+        } else {
+            Tabuleiro.lerFEN(Tabuleiro.FEN_POS_INICIAL);
+        }
+        diario.sincronizar();
+        diario.apagarSegmentosAnteriores();
+        return diario;
+    }
+
+    /**
+     * Força agora para o disco tudo o que já foi registrado.
+     */
+    public void sincronizar() {
+        descarregar();
+    }
+
+    @Override
+    public void close() throws IOException {
+        sincronizador.shutdown();
+        synchronized (this) {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+            segmento.force();
+            canal.close();
+        }
+    }
+
+    /**
+     * Lê todos os segmentos do diretório e devolve as partidas que não terminaram, por id, na ordem em que
+     * começaram. Cada uma traz a FEN do INICIO e os lances em sequência; a legalidade fica para
+     * {@link RegistroPartida#reproduzir()}. Um registro truncado ou corrompido encerra a leitura do seu segmento.
+     */
+    public static Map<Long, RegistroPartida> recuperar(Path diretorio) throws IOException {
+        Map<Long, RegistroPartida> ativas = new LinkedHashMap<>();
+        if (!Files.isDirectory(diretorio)) {
+            return ativas;
+        }
+        for (Path arquivo : segmentos(diretorio)) {
+            try (FileChannel leitura = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = leitura.map(FileChannel.MapMode.READ_ONLY, 0, leitura.size());
+                int inicio = 0;
+                while (buffer.limit() - inicio >= CABECALHO && buffer.get(inicio) != 0) {
+                    int tamanho = buffer.getShort(inicio + 2) & 0xFFFF;
+                    int fim = inicio + CABECALHO + tamanho;
+                    if (fim > buffer.limit() || soma(buffer, inicio, fim) != buffer.get(inicio + 1)) {
+                        System.out.println("Registro corrompido em " + arquivo + ", byte " + inicio + ".");
+                        break;
+                    }
+                    aplicar(ativas, buffer, inicio, tamanho);
+                    inicio = fim;
+                }
+            }
+        }
+        return ativas;
+    }
+
+    private static void aplicar(Map<Long, RegistroPartida> ativas, ByteBuffer buffer, int inicio, int tamanho) {
+        long partida = buffer.getLong(inicio + 4);
+        int conteudo = inicio + CABECALHO;
+        switch (buffer.get(inicio)) {
+            case INICIO -> {
+                byte[] fen = new byte[tamanho];
+                buffer.get(conteudo, fen);
+                ativas.remove(partida); // Um INICIO repetido recomeça a partida.
+                ativas.put(partida, new RegistroPartida(new String(fen, StandardCharsets.UTF_8)));
+            }
+            case LANCE -> {
+                RegistroPartida registro = ativas.get(partida);
+                if (registro == null) {
+                    return;
+                }
+                int meioLance = buffer.getInt(conteudo);
+                int esperado = registro.getQuantidadeLances() + 1;
+                if (meioLance == esperado) {
+                    registro.adicionarLance(buffer.getShort(conteudo + 4) & 0xFFFF);
+                } else if (meioLance > esperado) {
+                    System.out.println("Partida " + partida + ": faltam lances antes do meio-lance " + meioLance
+                            + "; descartada.");
+                    ativas.remove(partida);
+                } // meioLance < esperado: repetido, já aplicado.
+            }
+            case FIM -> ativas.remove(partida);
+            default -> System.out.println("Tipo de registro desconhecido: " + buffer.get(inicio));
+        }
+    }
+
+    // Garante espaço para o registro no segmento atual, passando para o próximo se preciso.
+    private int reservar(int tamanhoConteudo) {
+        if (fechado) {
+            throw new IllegalStateException("Diário fechado.");
+        }
+        if (CABECALHO + tamanhoConteudo > tamanhoSegmento) {
+            throw new IllegalArgumentException("Registro grande demais para o segmento: " + tamanhoConteudo);
+        }
+        if (segmento.remaining() < CABECALHO + tamanhoConteudo) {
+            MappedByteBuffer cheio = segmento;
+            FileChannel canalCheio = canal;
+            try {
+                abrirSegmento();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // O último force do segmento cheio também sai da thread que grava.
+            sincronizador.execute(() -> {
+                cheio.force();
+                try {
+                    canalCheio.close();
+                } catch (IOException ignorada) {
+                    // O mapeamento continua válido; só o descritor fica para o GC.
+                }
+            });
+        }
+        return segmento.position();
+    }
+
+    // Completa o cabeçalho e publica o registro escrevendo o tipo por último.
+    private void selar(int inicio, int tipo, long partida, int tamanhoConteudo) {
+        int fim = inicio + CABECALHO + tamanhoConteudo;
+        segmento.putShort(inicio + 2, (short) tamanhoConteudo)
+                .putLong(inicio + 4, partida)
+                .putLong(inicio + 12, System.currentTimeMillis());
+        segmento.put(inicio + 1, soma(segmento, inicio, fim));
+        segmento.put(inicio, (byte) tipo);
+        segmento.position(fim);
+        sujo = true;
+    }
+
+    private static byte soma(ByteBuffer buffer, int inicio, int fim) {
+        int soma = 0;
+        for (int i = inicio + 2; i < fim; i++) {
+            soma ^= buffer.get(i);
+        }
+        return (byte) soma;
+    }
+
+    // O force roda fora do monitor, para não segurar quem está gravando.
+    private void descarregar() {
+        if (!sujo) {
+            return;
+        }
+        sujo = false;
+        MappedByteBuffer atual;
+        synchronized (this) {
+            if (fechado) {
+                return;
+            }
+            atual = segmento;
+        }
+        atual.force();
+    }
+
+    /**
+     * Apaga os segmentos anteriores ao atual. Só para quem já regravou no segmento atual tudo o que ainda está
+     * ativo (um INICIO por partida) e chamou {@link #sincronizar()}.
+     */
+    public synchronized void apagarSegmentosAnteriores() throws IOException {
+        for (Path arquivo : segmentos(diretorio)) {
+            if (numeroDe(arquivo) < numeroSegmento) {
+                Files.deleteIfExists(arquivo);
+            }
+        }
+    }
+
+    // Continua gravando depois do último registro do segmento, se ele termina íntegro e ocupa menos da metade;
+    // assim cada reinício não deixa para trás um segmento quase vazio.
+    private boolean reabrirSegmento(Path arquivo) throws IOException {
+        FileChannel existente = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (existente.size() == tamanhoSegmento) {
+                MappedByteBuffer mapa = existente.map(FileChannel.MapMode.READ_WRITE, 0, tamanhoSegmento);
+                int fim = fimDosRegistros(mapa);
+                if (fim >= 0 && fim < tamanhoSegmento / 2) {
+                    canal = existente;
+                    segmento = mapa;
+                    segmento.position(fim);
+                    return true;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            existente.close();
+            throw e;
+        }
+        existente.close();
+        return false;
+    }
+
+    // Posição depois do último registro, ou -1 se a leitura para num registro corrompido.
+    private static int fimDosRegistros(ByteBuffer buffer) {
+        int inicio = 0;
+        while (buffer.limit() - inicio >= CABECALHO && buffer.get(inicio) != 0) {
+            int fim = inicio + CABECALHO + (buffer.getShort(inicio + 2) & 0xFFFF);
+            if (fim > buffer.limit() || soma(buffer, inicio, fim) != buffer.get(inicio + 1)) {
+                return -1;
+            }
+            inicio = fim;
+        }
+        return inicio;
+    }
+
+    private void abrirSegmento() throws IOException {
+        numeroSegmento++;
+        Path arquivo = diretorio.resolve(String.format("%s%06d%s", PREFIXO, numeroSegmento, SUFIXO));
+        canal = FileChannel.open(arquivo, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        segmento = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanhoSegmento);
+    }
+
+    private static List<Path> segmentos(Path diretorio) throws IOException {
+        List<Path> arquivos = new ArrayList<>();
+        try (Stream<Path> conteudo = Files.list(diretorio)) {
+            conteudo.filter(Diario::ehSegmento).forEach(arquivos::add);
+        }
+        Collections.sort(arquivos); // Os números têm largura fixa.
+        return arquivos;
+    }
+
+    private static boolean ehSegmento(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        return nome.startsWith(PREFIXO) && nome.endsWith(SUFIXO);
+    }
+
+    private static int numeroDe(Path segmento) {
+        String nome = segmento.getFileName().toString();
+        return Integer.parseInt(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()));
+    }
+}
@@ -0,0 +1,56 @@
+package persistencia;
+
+import Tabuleiro.Lance;
+
+/**
+ * Estatísticas de um lance jogado a partir de uma posição, como lidas do índice do explorador de aberturas.
+ */
+public final class EstatisticaLance {
+    private final int lance;
+    private final int partidas;
+    private final int vitoriasBrancas;
+    private final int empates;
+
+    public EstatisticaLance(int lance, int partidas, int vitoriasBrancas, int empates) {
+        this.lance = lance;
+        this.partidas = partidas;
+        this.vitoriasBrancas = vitoriasBrancas;
+        this.empates = empates;
+    }
+
+    public int getLance() {
+        return lance;
+    }
+
+    public int getPartidas() {
+        return partidas;
+    }
+
+    public int getVitoriasBrancas() {
+        return vitoriasBrancas;
+    }
+
+    public int getEmpates() {
+        return empates;
+    }
+
+    public int getVitoriasPretas() {
+        return partidas - vitoriasBrancas - empates;
+    }
+
+    /**
+     * Pontuação média das brancas nas partidas com esse lance (0.0 a 1.0).
+     */
+    public double getPontuacaoBrancas() {
+        if (partidas == 0) {
+            return 0.5;
+        }
+        return (vitoriasBrancas + empates * 0.5) / partidas;
+    }
+
+    @Override
+    public String toString() {
+        return Lance.paraString(lance) + " (" + partidas + " partidas, +" + vitoriasBrancas + " =" + empates
+                + " -" + getVitoriasPretas() + ")";
+    }
+}
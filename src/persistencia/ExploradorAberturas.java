@@ -0,0 +1,211 @@
+package persistencia;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Explorador de aberturas somente leitura sobre um índice mapeado em memória.
+ * <p>
+ * O arquivo é uma tabela ordenada por hash Zobrist de registros de tamanho fixo, então uma consulta é uma busca
+ * binária direto no {@link MappedByteBuffer}: nada é carregado no heap além dos registros devolvidos, e o sistema
+ * operacional cuida do cache das páginas.
+ *
+ * <pre>
+ * cabeçalho (16 bytes): int MAGICO, int VERSAO, long quantidade de registros
+ * registro  (24 bytes): long hash, short lance, short reservado, int partidas, int vitórias brancas, int empates
+ * </pre>
+ *
+ * Registros de uma mesma posição ficam contíguos, do lance mais jogado para o menos jogado.
+ */
+public class ExploradorAberturas implements AutoCloseable {
+    public static final int MAGICO = 0x43474558; // "CGEX"
+    public static final int VERSAO = 1;
+
+    public static final int VITORIA_BRANCAS = 1;
+    public static final int EMPATE = 0;
+    public static final int VITORIA_PRETAS = -1;
+
+    private static final int TAMANHO_CABECALHO = 16;
+    private static final int TAMANHO_REGISTRO = 24;
+    // Um MappedByteBuffer endereça no máximo 2GB, então arquivos maiores são mapeados em segmentos.
+    private static final long REGISTROS_POR_SEGMENTO = (1L << 30) / TAMANHO_REGISTRO;
+
+    private final FileChannel canal;
+    private final MappedByteBuffer[] segmentos;
+    private final long quantidade;
+
+    private ExploradorAberturas(FileChannel canal, MappedByteBuffer[] segmentos, long quantidade) {
+        this.canal = canal;
+        this.segmentos = segmentos;
+        this.quantidade = quantidade;
+    }
+
+    public static ExploradorAberturas abrir(Path arquivo) throws IOException {
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer cabecalho = canal.map(FileChannel.MapMode.READ_ONLY, 0, TAMANHO_CABECALHO);
+            if (cabecalho.getInt(0) != MAGICO || cabecalho.getInt(4) != VERSAO) {
+                throw new IOException("Arquivo não é um índice de aberturas válido: " + arquivo);
+            }
+            long quantidade = cabecalho.getLong(8);
+            if (TAMANHO_CABECALHO + quantidade * TAMANHO_REGISTRO > canal.size()) {
+                throw new IOException("Índice de aberturas truncado: " + arquivo);
+            }
+
+            int numSegmentos = (int) ((quantidade + REGISTROS_POR_SEGMENTO - 1) / REGISTROS_POR_SEGMENTO);
+            MappedByteBuffer[] segmentos = new MappedByteBuffer[numSegmentos];
+            for (int i = 0; i < numSegmentos; i++) {
+                long primeiro = i * REGISTROS_POR_SEGMENTO;
+                long registros = Math.min(REGISTROS_POR_SEGMENTO, quantidade - primeiro);
+                segmentos[i] = canal.map(FileChannel.MapMode.READ_ONLY,
+                        TAMANHO_CABECALHO + primeiro * TAMANHO_REGISTRO, registros * TAMANHO_REGISTRO);
+            }
+            return new ExploradorAberturas(canal, segmentos, quantidade);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    public long getQuantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Todos os lances jogados a partir da posição, do mais jogado para o menos jogado.
+     */
+    public List<EstatisticaLance> consultar(long hash) {
+        ArrayList<EstatisticaLance> resultado = new ArrayList<>();
+        for (long i = primeiroIndice(hash); i < quantidade && hashEm(i) == hash; i++) {
+            resultado.add(lerRegistro(i));
+        }
+        return resultado;
+    }
+
+    /**
+     * Estatísticas de um lance específico a partir da posição, ou null se ele nunca foi jogado.
+     */
+    public EstatisticaLance consultar(long hash, int lance) {
+        for (long i = primeiroIndice(hash); i < quantidade && hashEm(i) == hash; i++) {
+            if (lanceEm(i) == lance) {
+                return lerRegistro(i);
+            }
+        }
+        return null;
+    }
+
+    // Busca binária pelo primeiro registro com hash >= ao procurado.
+    private long primeiroIndice(long hash) {
+        long baixo = 0;
+        long alto = quantidade;
+        while (baixo < alto) {
+            long meio = (baixo + alto) >>> 1;
+            if (hashEm(meio) < hash) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    private long hashEm(long indice) {
+        return segmento(indice).getLong(deslocamento(indice));
+    }
+
+    private int lanceEm(long indice) {
+        return segmento(indice).getShort(deslocamento(indice) + 8) & 0xFFFF;
+    }
+
+    private EstatisticaLance lerRegistro(long indice) {
+        ByteBuffer segmento = segmento(indice);
+        int deslocamento = deslocamento(indice);
+        return new EstatisticaLance(
+                segmento.getShort(deslocamento + 8) & 0xFFFF,
+                segmento.getInt(deslocamento + 12),
+                segmento.getInt(deslocamento + 16),
+                segmento.getInt(deslocamento + 20));
+    }
+
+    private ByteBuffer segmento(long indice) {
+        return segmentos[(int) (indice / REGISTROS_POR_SEGMENTO)];
+    }
+
+    private static int deslocamento(long indice) {
+        return (int) (indice % REGISTROS_POR_SEGMENTO) * TAMANHO_REGISTRO;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Monta um arquivo de índice a partir de lances individuais de partidas.
+     * Serve para ferramentas offline; a agregação é feita em memória antes de gravar.
+     */
+    public static class Construtor {
+        private final HashMap<Long, HashMap<Integer, int[]>> posicoes = new HashMap<>();
+
+        public void adicionar(long hash, int lance, int resultado) {
+            int[] contagem = posicoes.computeIfAbsent(hash, h -> new HashMap<>())
+                    .computeIfAbsent(lance, l -> new int[3]);
+            contagem[0]++;
+            if (resultado == VITORIA_BRANCAS) {
+                contagem[1]++;
+            } else if (resultado == EMPATE) {
+                contagem[2]++;
+            }
+        }
+
+        public void gravar(Path arquivo) throws IOException {
+            ArrayList<Long> hashes = new ArrayList<>(posicoes.keySet());
+            hashes.sort(Long::compare);
+
+            long quantidade = 0;
+            for (HashMap<Integer, int[]> lances : posicoes.values()) {
+                quantidade += lances.size();
+            }
+
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                buffer.putInt(MAGICO).putInt(VERSAO).putLong(quantidade);
+
+                for (long hash : hashes) {
+                    ArrayList<Map.Entry<Integer, int[]>> lances = new ArrayList<>(posicoes.get(hash).entrySet());
+                    lances.sort((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+
+                    for (Map.Entry<Integer, int[]> entrada : lances) {
+                        if (buffer.remaining() < TAMANHO_REGISTRO) {
+                            buffer.flip();
+                            while (buffer.hasRemaining()) {
+                                canal.write(buffer);
+                            }
+                            buffer.clear();
+                        }
+                        int[] contagem = entrada.getValue();
+                        buffer.putLong(hash)
+                                .putShort((short) (int) entrada.getKey())
+                                .putShort((short) 0)
+                                .putInt(contagem[0])
+                                .putInt(contagem[1])
+                                .putInt(contagem[2]);
+                    }
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    canal.write(buffer);
+                }
+            }
+        }
+    }
+}
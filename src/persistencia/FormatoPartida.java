@@ -0,0 +1,160 @@
+package persistencia;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formato binário compacto de partidas: 2 bytes por lance mais um cabeçalho pequeno.
+ *
+ * <pre>
+ * arquivo:  int MAGICO, int VERSAO, registros até o fim
+ * registro: byte flags (bits 0-1 resultado, bit 2 tem FEN), byte quantidade de etiquetas,
+ *           short quantidade de lances, etiquetas (texto nome, texto valor), [texto FEN], lances (short cada)
+ * texto:    short tamanho, bytes em UTF-8
+ * </pre>
+ *
+ * Cada lance é gravado na codificação de {@link Tabuleiro.Lance} (origem, destino e promoção em 16 bits), então
+ * a leitura não depende de gerar lances; a validação fica para {@link RegistroPartida#reproduzir()}.
+ */
+public final class FormatoPartida {
+    public static final int MAGICO = 0x43475052; // "CGPR"
+    public static final int VERSAO = 1;
+
+    private static final int TAMANHO_CABECALHO_ARQUIVO = 8;
+    private static final int TEM_FEN = 1 << 2;
+
+    private FormatoPartida() {
+    }
+
+    /**
+     * Bytes que {@link #escrever} vai ocupar.
+     */
+    public static int tamanho(RegistroPartida registro) {
+        int tamanho = 4 + 2 * registro.getQuantidadeLances();
+        for (Map.Entry<String, String> etiqueta : registro.getEtiquetas().entrySet()) {
+            tamanho += tamanhoTexto(etiqueta.getKey()) + tamanhoTexto(etiqueta.getValue());
+        }
+        if (registro.getFenInicial() != null) {
+            tamanho += tamanhoTexto(registro.getFenInicial());
+        }
+        return tamanho;
+    }
+
+    public static void escrever(RegistroPartida registro, ByteBuffer destino) {
+        int quantidade = registro.getQuantidadeLances();
+        if (quantidade > 0xFFFF || registro.getEtiquetas().size() > 0xFF) {
+            throw new IllegalArgumentException("Partida grande demais para o formato: " + quantidade + " lances.");
+        }
+        int flags = registro.getResultado() | ((registro.getFenInicial() != null) ? TEM_FEN : 0);
+        destino.put((byte) flags)
+                .put((byte) registro.getEtiquetas().size())
+                .putShort((short) quantidade);
+        for (Map.Entry<String, String> etiqueta : registro.getEtiquetas().entrySet()) {
+            escreverTexto(destino, etiqueta.getKey());
+            escreverTexto(destino, etiqueta.getValue());
+        }
+        if (registro.getFenInicial() != null) {
+            escreverTexto(destino, registro.getFenInicial());
+        }
+        for (int i = 0; i < quantidade; i++) {
+            destino.putShort((short) registro.getLance(i));
+        }
+    }
+
+    /**
+     * Lê um registro a partir da posição atual e avança até o fim dele.
+     */
+    public static RegistroPartida ler(ByteBuffer origem) {
+        int flags = origem.get() & 0xFF;
+        int etiquetas = origem.get() & 0xFF;
+        int quantidade = origem.getShort() & 0xFFFF;
+
+        String[] nomes = new String[etiquetas];
+        String[] valores = new String[etiquetas];
+        for (int i = 0; i < etiquetas; i++) {
+            nomes[i] = lerTexto(origem);
+            valores[i] = lerTexto(origem);
+        }
+        RegistroPartida registro = new RegistroPartida(((flags & TEM_FEN) != 0) ? lerTexto(origem) : null);
+        for (int i = 0; i < etiquetas; i++) {
+            registro.setEtiqueta(nomes[i], valores[i]);
+        }
+        registro.setResultado(flags & 0x3);
+        for (int i = 0; i < quantidade; i++) {
+            registro.adicionarLance(origem.getShort() & 0xFFFF);
+        }
+        return registro;
+    }
+
+    public static void gravar(Path arquivo, List<RegistroPartida> registros) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            buffer.putInt(MAGICO).putInt(VERSAO);
+            for (RegistroPartida registro : registros) {
+                int necessario = tamanho(registro);
+                if (buffer.remaining() < necessario) {
+                    descarregar(canal, buffer);
+                    if (buffer.capacity() < necessario) {
+                        buffer = ByteBuffer.allocate(necessario);
+                    }
+                }
+                escrever(registro, buffer);
+            }
+            descarregar(canal, buffer);
+        }
+    }
+
+    /**
+     * Lê todos os registros do arquivo, mapeado em memória.
+     */
+    public static List<RegistroPartida> lerArquivo(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (buffer.remaining() < TAMANHO_CABECALHO_ARQUIVO || buffer.getInt() != MAGICO
+                    || buffer.getInt() != VERSAO) {
+                throw new IOException("Arquivo não é um registro de partidas válido: " + arquivo);
+            }
+            List<RegistroPartida> registros = new ArrayList<>();
+            try {
+                while (buffer.hasRemaining()) {
+                    registros.add(ler(buffer));
+                }
+            } catch (RuntimeException e) { // BufferUnderflowException e afins.
+                throw new IOException("Registro de partidas truncado: " + arquivo, e);
+            }
+            return registros;
+        }
+    }
+
+    private static void descarregar(FileChannel canal, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static int tamanhoTexto(String texto) {
+        return 2 + texto.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void escreverTexto(ByteBuffer destino, String texto) {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        destino.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String lerTexto(ByteBuffer origem) {
+        byte[] bytes = new byte[origem.getShort() & 0xFFFF];
+        origem.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
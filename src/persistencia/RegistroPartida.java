@@ -0,0 +1,115 @@
+package persistencia;
+
+import Tabuleiro.Lance;
+import Tabuleiro.Posicao;
+import Tabuleiro.Tabuleiro;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Uma partida gravada: etiquetas (como as tags do PGN), posição inicial, lances e resultado.
+ * <p>
+ * Os lances ficam na codificação de {@link Lance}, que cabe em 16 bits; {@link #reproduzir()} os refaz pelas regras
+ * de {@link Posicao}, recusando qualquer lance ilegal.
+ */
+public class RegistroPartida {
+    public static final int SEM_RESULTADO = 0;
+    public static final int VITORIA_BRANCAS = 1;
+    public static final int VITORIA_PRETAS = 2;
+    public static final int EMPATE = 3;
+
+    private static final String FEN_INICIAL = Tabuleiro.FEN_POS_INICIAL + " w KQkq - 0 1";
+
+    private final Map<String, String> etiquetas = new LinkedHashMap<>();
+    private final String fenInicial; // null = posição inicial padrão.
+    private int resultado = SEM_RESULTADO;
+    private int[] lances = new int[64];
+    private int quantidade;
+
+    public RegistroPartida() {
+        this(null);
+    }
+
+    public RegistroPartida(String fenInicial) {
+        this.fenInicial = fenInicial;
+    }
+
+    public Map<String, String> getEtiquetas() {
+        return etiquetas;
+    }
+
+    public void setEtiqueta(String nome, String valor) {
+        etiquetas.put(nome, valor);
+    }
+
+    public String getFenInicial() {
+        return fenInicial;
+    }
+
+    public int getResultado() {
+        return resultado;
+    }
+
+    public void setResultado(int resultado) {
+        this.resultado = resultado;
+    }
+
+    public void adicionarLance(int lance) {
+        if (quantidade == lances.length) {
+            lances = Arrays.copyOf(lances, quantidade * 2);
+        }
+        lances[quantidade++] = lance;
+    }
+
+    public int getLance(int indice) {
+        return lances[indice];
+    }
+
+    public int getQuantidadeLances() {
+        return quantidade;
+    }
+
+    /**
+     * Posição inicial da partida, sem lances feitos.
+     */
+    public Posicao posicaoInicial() {
+        return new Posicao((fenInicial == null) ? FEN_INICIAL : fenInicial);
+    }
+
+    /**
+     * Refaz todos os lances a partir da posição inicial e devolve a posição final.
+     *
+     * @throws IllegalArgumentException se algum lance é ilegal na posição em que foi jogado.
+     */
+    public Posicao reproduzir() {
+        Posicao posicao = posicaoInicial();
+        for (int i = 0; i < quantidade; i++) {
+            if (!posicao.ehLegal(lances[i])) {
+                throw new IllegalArgumentException("Lance ilegal no registro, meio-lance " + (i + 1) + ": "
+                        + Lance.paraString(lances[i]));
+            }
+            posicao.fazerLance(lances[i]);
+        }
+        return posicao;
+    }
+
+    public static String resultadoString(int resultado) {
+        return switch (resultado) {
+            case VITORIA_BRANCAS -> "1-0";
+            case VITORIA_PRETAS -> "0-1";
+            case EMPATE -> "1/2-1/2";
+            default -> "*";
+        };
+    }
+
+    public static int resultadoDe(String texto) {
+        return switch (texto) {
+            case "1-0" -> VITORIA_BRANCAS;
+            case "0-1" -> VITORIA_PRETAS;
+            case "1/2-1/2" -> EMPATE;
+            default -> SEM_RESULTADO;
+        };
+    }
+}
@@ -0,0 +1,155 @@
+package servidor;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import static servidor.ProtocoloBinario.*;
+
+/**
+ * Cliente bloqueante do {@link ProtocoloBinario}. Os métodos de envio só escrevem o quadro e devolvem o número do
+ * pedido, sem esperar a resposta; {@link #receber()} lê o próximo quadro que chegar.
+ * Não é seguro para várias threads.
+ */
+public class ClienteBinario implements AutoCloseable {
+
+    /**
+     * Um quadro recebido: resposta ou ressincronização (com estado), lote de lances (com os lances; o estado vem
+     * sem FEN) ou erro (com código e mensagem).
+     */
+    public static class Quadro {
+        private final int tipo;
+        private final int pedido;
+        private final EstadoPartida estado;
+        private final int[] lances;
+        private final int codigoErro;
+        private final String mensagem;
+
+        Quadro(int tipo, int pedido, EstadoPartida estado, int[] lances, int codigoErro, String mensagem) {
+            this.tipo = tipo;
+            this.pedido = pedido;
+            this.estado = estado;
+            this.lances = lances;
+            this.codigoErro = codigoErro;
+            this.mensagem = mensagem;
+        }
+
+        public int getTipo() {
+            return tipo;
+        }
+
+        public int getPedido() {
+            return pedido;
+        }
+
+        public EstadoPartida getEstado() {
+            return estado;
+        }
+
+        public int[] getLances() {
+            return lances;
+        }
+
+        public int getCodigoErro() {
+            return codigoErro;
+        }
+
+        public String getMensagem() {
+            return mensagem;
+        }
+    }
+
+    private final SocketChannel canal;
+    private final ByteBuffer escrita = ByteBuffer.allocateDirect(TAMANHO_MAXIMO);
+    private final ByteBuffer leitura = ByteBuffer.allocateDirect(16 * 1024);
+    private int proximoPedido = 1;
+
+    public ClienteBinario(int porta) throws IOException {
+        canal = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta));
+        canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        leitura.flip(); // Começa vazio, em modo de leitura.
+    }
+
+    public int criar(String fen) throws IOException {
+        int pedido = proximoPedido++;
+        escrita.clear();
+        escreverCriar(escrita, pedido, fen);
+        enviar();
+        return pedido;
+    }
+
+    public int jogar(long partida, int lance) throws IOException {
+        int pedido = proximoPedido++;
+        escrita.clear();
+        escreverLance(escrita, pedido, partida, lance);
+        enviar();
+        return pedido;
+    }
+
+    public int consultar(long partida) throws IOException {
+        return enviarPedido(ESTADO, partida);
+    }
+
+    public int observar(long partida) throws IOException {
+        return enviarPedido(OBSERVAR, partida);
+    }
+
+    /**
+     * Bloqueia até chegar um quadro completo.
+     */
+    public Quadro receber() throws IOException {
+        int tamanho;
+        while ((tamanho = tamanhoQuadro(leitura)) < 0 || leitura.remaining() < tamanho) {
+            leitura.compact();
+            int lidos = canal.read(leitura);
+            leitura.flip();
+            if (lidos < 0) {
+                throw new EOFException("Conexão fechada pelo servidor.");
+            }
+        }
+        int inicio = leitura.position();
+        int fim = inicio + tamanho;
+        int tipo = ProtocoloBinario.tipo(leitura, inicio);
+        int pedido = ProtocoloBinario.pedido(leitura, inicio);
+        Quadro quadro;
+        if (tipo == ERRO) {
+            quadro = new Quadro(tipo, pedido, null, null, leitura.get(inicio + CABECALHO),
+                    lerTexto(leitura, inicio + CABECALHO + 1, fim));
+        } else if (tipo == LANCES) {
+            int[] lances = lerLances(leitura, inicio, fim);
+            int i = inicio + CABECALHO;
+            EstadoPartida estado = new EstadoPartida(leitura.getLong(i), null, leitura.getShort(i + 8) & 0xFFFF,
+                    (lances.length == 0) ? 0 : lances[lances.length - 1], leitura.get(i + 11) != 0,
+                    EstadoPartida.Situacao.values()[leitura.get(i + 10)]);
+            quadro = new Quadro(tipo, pedido, estado, lances, 0, null);
+        } else {
+            quadro = new Quadro(tipo, pedido, lerEstado(leitura, inicio, fim), null, 0, null);
+        }
+        leitura.position(fim);
+        return quadro;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    private int enviarPedido(int tipo, long partida) throws IOException {
+        int pedido = proximoPedido++;
+        escrita.clear();
+        escreverPedido(escrita, tipo, pedido, partida);
+        enviar();
+        return pedido;
+    }
+
+    private void enviar() throws IOException {
+        escrita.flip();
+        while (escrita.hasRemaining()) {
+            canal.write(escrita);
+        }
+    }
+}
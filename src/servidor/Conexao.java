@@ -0,0 +1,166 @@
+package servidor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Estado de um cliente do {@link ServidorBinario}: o buffer de leitura e a fila de quadros a enviar.
+ * <p>
+ * Quadros podem ser enfileirados de qualquer thread (as respostas saem dos atores das partidas); a escrita no
+ * canal só acontece na thread do seletor, juntando vários quadros numa única escrita. Respostas usam buffers
+ * diretos do pool; quadros de transmissão são buffers de heap compartilhados, limitados a
+ * {@link #LIMITE_TRANSMISSAO} na fila para que um espectador lento não acumule memória.
+ */
+class Conexao implements Espectador {
+    static final int LIMITE_TRANSMISSAO = 64;
+
+    private final SocketChannel canal;
+    private final SelectionKey chave;
+    private final ServidorBinario servidor;
+    private final PoolBuffers poolQuadros;
+
+    final ByteBuffer leitura;
+
+    private final ConcurrentLinkedQueue<ByteBuffer> saida = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean escritaPedida = new AtomicBoolean();
+    private final AtomicInteger pendentesTransmissao = new AtomicInteger();
+
+    // Lote em escrita: só usado na thread do seletor.
+    private final ByteBuffer[] lote = new ByteBuffer[32];
+    private int inicioLote;
+    private int fimLote;
+
+    // Partidas assistidas, para sair das transmissões quando a conexão fecha. Só usada na thread do seletor.
+    private final List<Partida> assistidas = new ArrayList<>();
+
+    private volatile boolean fechada;
+
+    Conexao(SocketChannel canal, SelectionKey chave, ServidorBinario servidor, ByteBuffer leitura,
+            PoolBuffers poolQuadros) {
+        this.canal = canal;
+        this.chave = chave;
+        this.servidor = servidor;
+        this.leitura = leitura;
+        this.poolQuadros = poolQuadros;
+    }
+
+    SocketChannel getCanal() {
+        return canal;
+    }
+
+    SelectionKey getChave() {
+        return chave;
+    }
+
+    /**
+     * Enfileira um quadro já escrito (posição no fim do quadro). Pode ser chamado de qualquer thread.
+     */
+    void enviar(ByteBuffer quadro) {
+        if (fechada) {
+            poolQuadros.devolver(quadro);
+            return;
+        }
+        enfileirar(quadro.flip());
+    }
+
+    @Override
+    public boolean oferecer(ByteBuffer quadro) {
+        if (fechada) {
+            return true; // Vai sair da transmissão; não precisa de ressincronização.
+        }
+        if (pendentesTransmissao.incrementAndGet() > LIMITE_TRANSMISSAO) {
+            pendentesTransmissao.decrementAndGet();
+            return false;
+        }
+        enfileirar(quadro.duplicate());
+        return true;
+    }
+
+    private void enfileirar(ByteBuffer quadro) {
+        saida.add(quadro);
+        if (escritaPedida.compareAndSet(false, true)) {
+            servidor.pedirEscrita(this);
+        }
+    }
+
+    /**
+     * Escreve o que der sem bloquear. Devolve true se a fila esvaziou.
+     */
+    boolean escrever() throws IOException {
+        while (true) {
+            if (inicioLote == fimLote) {
+                inicioLote = 0;
+                fimLote = 0;
+                ByteBuffer quadro;
+                while (fimLote < lote.length && (quadro = saida.poll()) != null) {
+                    lote[fimLote++] = quadro;
+                }
+                if (fimLote == 0) {
+                    break;
+                }
+            }
+            canal.write(lote, inicioLote, fimLote - inicioLote);
+            while (inicioLote < fimLote && !lote[inicioLote].hasRemaining()) {
+                liberar(lote[inicioLote]);
+                lote[inicioLote++] = null;
+            }
+            if (inicioLote < fimLote) {
+                return false; // O buffer do socket encheu; continua quando ficar gravável.
+            }
+        }
+        escritaPedida.set(false);
+        // Um quadro pode ter entrado entre o último poll e o set acima.
+        return saida.isEmpty() || !escritaPedida.compareAndSet(false, true);
+    }
+
+    private void liberar(ByteBuffer quadro) {
+        if (quadro.isDirect()) {
+            poolQuadros.devolver(quadro);
+        } else {
+            pendentesTransmissao.decrementAndGet();
+        }
+    }
+
+    /**
+     * Registra a partida como assistida; false se a conexão já a assistia.
+     */
+    boolean assistir(Partida partida) {
+        if (assistidas.contains(partida)) {
+            return false;
+        }
+        assistidas.add(partida);
+        return true;
+    }
+
+    List<Partida> getAssistidas() {
+        return assistidas;
+    }
+
+    void fechar() {
+        fechada = true;
+        chave.cancel();
+        try {
+            canal.close();
+        } catch (IOException ignorada) {
+            // Já estava fechando; nada a fazer.
+        }
+        ByteBuffer quadro;
+        while ((quadro = saida.poll()) != null) {
+            liberar(quadro);
+        }
+        for (int i = inicioLote; i < fimLote; i++) {
+            liberar(lote[i]);
+        }
+    }
+
+    boolean isFechada() {
+        return fechada;
+    }
+}
@@ -0,0 +1,76 @@
+package servidor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camada de transmissão para espectadores: mantém uma {@link Transmissao} por partida assistida e, a cada
+ * intervalo, descarrega as que receberam lances. Lances jogados dentro do mesmo intervalo viram um único quadro.
+ */
+public class Difusor implements AutoCloseable {
+    private final ConcurrentHashMap<Long, Transmissao> transmissoes = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Transmissao> sujas = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService agenda;
+
+    public Difusor(long intervaloMs) {
+        agenda = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "difusor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agenda.scheduleAtFixedRate(this::descarregar, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Passa a transmitir a partida para o espectador, começando por um quadro de ressincronização.
+     */
+    public void assistir(Partida partida, Espectador espectador) {
+        transmissoes.compute(partida.getId(), (id, transmissao) -> {
+            if (transmissao == null) {
+                transmissao = new Transmissao(partida, this);
+                partida.adicionarOuvinte(transmissao);
+            }
+            transmissao.adicionar(espectador);
+            return transmissao;
+        });
+    }
+
+    public void deixar(Partida partida, Espectador espectador) {
+        transmissoes.computeIfPresent(partida.getId(), (id, transmissao) -> {
+            if (transmissao.remover(espectador)) {
+                partida.removerOuvinte(transmissao); // Ninguém mais assiste.
+                return null;
+            }
+            return transmissao;
+        });
+    }
+
+    public int quantidadeEspectadores(long partida) {
+        Transmissao transmissao = transmissoes.get(partida);
+        return (transmissao == null) ? 0 : transmissao.quantidadeEspectadores();
+    }
+
+    void agendar(Transmissao transmissao) {
+        sujas.add(transmissao);
+    }
+
+    private void descarregar() {
+        Transmissao transmissao;
+        // Só o que já estava na fila: uma transmissão reagendada durante a descarga espera o próximo intervalo.
+        for (int i = sujas.size(); i > 0 && (transmissao = sujas.poll()) != null; i--) {
+            try {
+                transmissao.descarregar();
+            } catch (RuntimeException e) {
+                System.out.println("Erro na transmissão da partida " + transmissao.getPartida().getId() + ": " + e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        agenda.shutdown();
+    }
+}
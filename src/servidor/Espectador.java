@@ -0,0 +1,14 @@
+package servidor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Destino de uma {@link Transmissao}, normalmente uma conexão de cliente.
+ */
+public interface Espectador {
+    /**
+     * Tenta enfileirar um quadro já codificado. O buffer é compartilhado entre todos os espectadores e não pode
+     * ser modificado (use {@link ByteBuffer#duplicate()}). Devolve false se a fila do espectador está cheia.
+     */
+    boolean oferecer(ByteBuffer quadro);
+}
@@ -0,0 +1,67 @@
+package servidor;
+
+import Tabuleiro.Lance;
+
+/**
+ * Retrato imutável de uma partida num instante, seguro para passar entre threads.
+ */
+public class EstadoPartida {
+
+    public enum Situacao {
+        EM_ANDAMENTO, XEQUE_MATE, AFOGAMENTO, EMPATE
+    }
+
+    private final long id;
+    private final String fen;
+    private final int lances; // Meio-lances jogados no servidor.
+    private final int ultimoLance; // Lance.NENHUM antes do primeiro lance.
+    private final boolean xeque;
+    private final Situacao situacao;
+
+    public EstadoPartida(long id, String fen, int lances, int ultimoLance, boolean xeque, Situacao situacao) {
+        this.id = id;
+        this.fen = fen;
+        this.lances = lances;
+        this.ultimoLance = ultimoLance;
+        this.xeque = xeque;
+        this.situacao = situacao;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    public int getLances() {
+        return lances;
+    }
+
+    public int getUltimoLance() {
+        return ultimoLance;
+    }
+
+    public boolean isXeque() {
+        return xeque;
+    }
+
+    public Situacao getSituacao() {
+        return situacao;
+    }
+
+    public boolean terminou() {
+        return situacao != Situacao.EM_ANDAMENTO;
+    }
+
+    public String toJSON() {
+        return "{\"id\":" + id
+                + ",\"fen\":\"" + fen + '"'
+                + ",\"lances\":" + lances
+                + ",\"ultimoLance\":"
+                + (ultimoLance == Lance.NENHUM ? "null" : '"' + Lance.paraString(ultimoLance) + '"')
+                + ",\"xeque\":" + xeque
+                + ",\"situacao\":\"" + situacao + "\"}";
+    }
+}
@@ -0,0 +1,9 @@
+package servidor;
+
+/**
+ * Recebe o estado da partida depois de cada lance. É chamado dentro do ator, então não deve bloquear.
+ */
+@FunctionalInterface
+public interface OuvintePartida {
+    void lanceJogado(EstadoPartida estado);
+}
@@ -0,0 +1,202 @@
+package servidor;
+
+import Tabuleiro.Lance;
+import Tabuleiro.Notacao;
+import Tabuleiro.Posicao;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static pecas.Peca.RAINHA;
+
+/**
+ * Uma partida hospedada no servidor, tratada como um ator: os pedidos entram numa caixa de mensagens e são
+ * processados um de cada vez, então a {@link Posicao} nunca é tocada por duas threads ao mesmo tempo.
+ * <p>
+ * A partida não prende uma thread enquanto espera: quando chega um pedido e ela está ociosa, uma tarefa é
+ * agendada no executor (de threads virtuais) para esvaziar a caixa e termina quando ela fica vazia. Assim, milhares
+ * de partidas paradas custam só memória.
+ * <p>
+ * Uma partida ociosa pode ainda {@link #hibernar() hibernar}: a {@link Posicao} (com as pilhas de lances) vira um
+ * instantâneo de algumas dezenas de bytes e sai do heap. O próximo pedido que precisa da posição a reconstrói, sem
+ * que o cliente perceba; consultas respondem com o último estado, sem acordar a partida.
+ */
+public class Partida {
+    private final long id;
+    private final Executor executor;
+
+    private final ConcurrentLinkedQueue<Runnable> caixa = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean agendada = new AtomicBoolean();
+    private final CopyOnWriteArrayList<OuvintePartida> ouvintes = new CopyOnWriteArrayList<>();
+
+    // Só lido e escrito dentro do ator. Com a partida hibernada, posicao é null e o instantâneo guarda a posição.
+    private Posicao posicao;
+    private volatile byte[] instantaneo;
+    private EstadoPartida estado;
+
+    private volatile long ultimaAtividade = System.nanoTime();
+
+    Partida(long id, Posicao posicao, Executor executor) {
+        this.id = id;
+        this.posicao = posicao;
+        this.executor = executor;
+        this.estado = retratar();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Joga o lance (UCI, ex: "e2e4", ou SAN, ex: "Nf3"). O futuro falha com {@link IllegalArgumentException} se
+     * o lance é ilegal, ou com {@link IllegalStateException} se a partida já terminou.
+     */
+    public CompletableFuture<EstadoPartida> jogar(String lance) {
+        return pedir(() -> {
+            Posicao atual = acordar();
+            int codificado = Notacao.deUCI(atual, lance);
+            if (codificado == Lance.NENHUM) {
+                codificado = Notacao.deSAN(atual, lance);
+            }
+            return aplicar(codificado, lance);
+        });
+    }
+
+    /**
+     * Joga um lance já codificado com {@link Lance}. Promoção sem peça vale como dama.
+     */
+    public CompletableFuture<EstadoPartida> jogar(int lance) {
+        return pedir(() -> aplicar(procurarLegal(lance), Lance.paraString(lance)));
+    }
+
+    public CompletableFuture<EstadoPartida> consultar() {
+        return pedir(() -> estado);
+    }
+
+    /**
+     * Registra um ouvinte avisado, dentro do ator, a cada lance jogado.
+     */
+    public void adicionarOuvinte(OuvintePartida ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    public void removerOuvinte(OuvintePartida ouvinte) {
+        ouvintes.remove(ouvinte);
+    }
+
+    /**
+     * Hiberna a partida (dentro do ator) se ela continuar sem pedidos há pelo menos {@code ociosoNanos} quando a
+     * vez chegar. Uma partida terminada também hiberna: só é consultada, e a consulta não precisa da posição.
+     */
+    public void hibernar(long ociosoNanos) {
+        enfileirar(() -> {
+            if (posicao == null || System.nanoTime() - ultimaAtividade < ociosoNanos) {
+                return;
+            }
+            ByteBuffer destino = ByteBuffer.allocate(posicao.tamanhoInstantaneo());
+            posicao.escreverInstantaneo(destino);
+            instantaneo = destino.array();
+            posicao = null;
+        });
+    }
+
+    public boolean isHibernada() {
+        return instantaneo != null;
+    }
+
+    /**
+     * Nanossegundos (de {@link System#nanoTime()}) do último pedido recebido.
+     */
+    public long getUltimaAtividade() {
+        return ultimaAtividade;
+    }
+
+    private EstadoPartida aplicar(int lance, String original) {
+        if (estado.terminou()) {
+            throw new IllegalStateException("A partida já terminou: " + estado.getSituacao());
+        }
+        if (lance == Lance.NENHUM) {
+            throw new IllegalArgumentException("Lance ilegal: " + original);
+        }
+        acordar().fazerLance(lance);
+        estado = retratar();
+        for (OuvintePartida ouvinte : ouvintes) {
+            ouvinte.lanceJogado(estado);
+        }
+        return estado;
+    }
+
+    private int procurarLegal(int lance) {
+        Posicao atual = acordar();
+        if (atual.ehLegal(lance)) {
+            return lance;
+        }
+        int dama = lance | (RAINHA << 12);
+        return (Lance.promocao(lance) == 0 && atual.ehLegal(dama)) ? dama : Lance.NENHUM;
+    }
+
+    // Reconstrói a posição se a partida estava hibernada. Só dentro do ator.
+    private Posicao acordar() {
+        if (posicao == null) {
+            Posicao restaurada = new Posicao();
+            restaurada.lerInstantaneo(ByteBuffer.wrap(instantaneo));
+            posicao = restaurada;
+            instantaneo = null;
+        }
+        return posicao;
+    }
+
+    private <T> CompletableFuture<T> pedir(Supplier<T> pedido) {
+        ultimaAtividade = System.nanoTime();
+        CompletableFuture<T> resposta = new CompletableFuture<>();
+        enfileirar(() -> {
+            try {
+                resposta.complete(pedido.get());
+            } catch (RuntimeException e) {
+                resposta.completeExceptionally(e);
+            }
+        });
+        return resposta;
+    }
+
+    private void enfileirar(Runnable tarefa) {
+        caixa.add(tarefa);
+        agendar();
+    }
+
+    private void agendar() {
+        if (agendada.compareAndSet(false, true)) {
+            executor.execute(this::processar);
+        }
+    }
+
+    private void processar() {
+        Runnable pedido;
+        while ((pedido = caixa.poll()) != null) {
+            pedido.run();
+        }
+        agendada.set(false);
+        // Um pedido pode ter chegado entre o último poll e o set acima.
+        if (!caixa.isEmpty()) {
+            agendar();
+        }
+    }
+
+    private EstadoPartida retratar() {
+        boolean xeque = posicao.emXeque();
+        EstadoPartida.Situacao situacao;
+        if (!posicao.temLanceLegal()) {
+            situacao = xeque ? EstadoPartida.Situacao.XEQUE_MATE : EstadoPartida.Situacao.AFOGAMENTO;
+        } else if (posicao.ehEmpate()) {
+            situacao = EstadoPartida.Situacao.EMPATE;
+        } else {
+            situacao = EstadoPartida.Situacao.EM_ANDAMENTO;
+        }
+        return new EstadoPartida(id, posicao.toFEN(), posicao.getPly(), posicao.getUltimoLance(), xeque, situacao);
+    }
+}
@@ -0,0 +1,41 @@
+package servidor;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reaproveita ByteBuffers diretos de tamanho fixo, para o caminho de leitura e escrita não alocar a cada quadro.
+ * Guarda no máximo {@code limite} buffers livres; os excedentes ficam para o coletor.
+ */
+public class PoolBuffers {
+    private final int tamanho;
+    private final int limite;
+    private final ConcurrentLinkedQueue<ByteBuffer> livres = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger quantidadeLivres = new AtomicInteger();
+
+    public PoolBuffers(int tamanho, int limite) {
+        this.tamanho = tamanho;
+        this.limite = limite;
+    }
+
+    /**
+     * Um buffer limpo (posição 0, limite igual à capacidade).
+     */
+    public ByteBuffer obter() {
+        ByteBuffer buffer = livres.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(tamanho);
+        }
+        quantidadeLivres.decrementAndGet();
+        return buffer.clear();
+    }
+
+    public void devolver(ByteBuffer buffer) {
+        if (quantidadeLivres.incrementAndGet() <= limite) {
+            livres.add(buffer);
+        } else {
+            quantidadeLivres.decrementAndGet();
+        }
+    }
+}
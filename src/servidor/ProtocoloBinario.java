@@ -0,0 +1,181 @@
+package servidor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formato dos quadros do protocolo binário. Todos os inteiros são big-endian.
+ *
+ * <pre>
+ * quadro:  int tamanho (bytes depois deste campo) | byte tipo | int pedido | conteúdo
+ *
+ * cliente -> servidor
+ *   CRIAR     FEN em ASCII (vazio = posição inicial)
+ *   LANCE     long partida | short lance (codificação de Lance)
+ *   ESTADO    long partida
+ *   OBSERVAR  long partida
+ *
+ * servidor -> cliente
+ *   RESPOSTA        long partida | short meio-lances | short último lance | byte situação | byte xeque | FEN
+ *   LANCES          long partida | short meio-lances | byte situação | byte xeque | short n | n x short lance
+ *   RESSINCRONIZAR  igual a RESPOSTA
+ *   ERRO            byte código | mensagem em UTF-8
+ * </pre>
+ *
+ * O número do pedido volta na resposta, então o cliente pode mandar vários pedidos sem esperar (pipelining). Pedidos
+ * para a mesma partida são respondidos na ordem em que chegaram; para partidas diferentes, não necessariamente.
+ * <p>
+ * Observadores recebem, com pedido 0, lotes de {@code LANCES} com os lances jogados desde o lote anterior (o campo
+ * meio-lances é o total depois do lote), ou {@code RESSINCRONIZAR} com a posição inteira quando entram na
+ * transmissão ou quando ficaram para trás e perderam lotes.
+ */
+public final class ProtocoloBinario {
+    public static final int CRIAR = 1;
+    public static final int LANCE = 2;
+    public static final int ESTADO = 3;
+    public static final int OBSERVAR = 4;
+
+    public static final int RESPOSTA = 0x41;
+    public static final int LANCES = 0x42;
+    public static final int RESSINCRONIZAR = 0x52;
+    public static final int ERRO = 0x45;
+
+    public static final int ERRO_PEDIDO_INVALIDO = 1;
+    public static final int ERRO_PARTIDA_NAO_ENCONTRADA = 2;
+    public static final int ERRO_LANCE_ILEGAL = 3;
+    public static final int ERRO_PARTIDA_TERMINADA = 4;
+
+    public static final int CABECALHO = 4 + 1 + 4; // tamanho, tipo, pedido.
+    public static final int TAMANHO_MAXIMO = 512; // Maior quadro aceito, contando o cabeçalho.
+
+    private ProtocoloBinario() {
+    }
+
+    public static void escreverCriar(ByteBuffer destino, int pedido, String fen) {
+        int inicio = abrir(destino, CRIAR, pedido);
+        if (fen != null) {
+            destino.put(fen.getBytes(StandardCharsets.US_ASCII));
+        }
+        fechar(destino, inicio);
+    }
+
+    public static void escreverLance(ByteBuffer destino, int pedido, long partida, int lance) {
+        int inicio = abrir(destino, LANCE, pedido);
+        destino.putLong(partida).putShort((short) lance);
+        fechar(destino, inicio);
+    }
+
+    /**
+     * Pedido só com o id da partida ({@link #ESTADO} ou {@link #OBSERVAR}).
+     */
+    public static void escreverPedido(ByteBuffer destino, int tipo, int pedido, long partida) {
+        int inicio = abrir(destino, tipo, pedido);
+        destino.putLong(partida);
+        fechar(destino, inicio);
+    }
+
+    /**
+     * {@link #RESPOSTA} ou {@link #RESSINCRONIZAR}.
+     */
+    public static void escreverEstado(ByteBuffer destino, int tipo, int pedido, EstadoPartida estado) {
+        int inicio = abrir(destino, tipo, pedido);
+        destino.putLong(estado.getId())
+                .putShort((short) estado.getLances())
+                .putShort((short) estado.getUltimoLance())
+                .put((byte) estado.getSituacao().ordinal())
+                .put((byte) (estado.isXeque() ? 1 : 0));
+        String fen = estado.getFen();
+        for (int i = 0; i < fen.length(); i++) {
+            destino.put((byte) fen.charAt(i));
+        }
+        fechar(destino, inicio);
+    }
+
+    /**
+     * Lote com os {@code n} lances jogados até chegar a {@code estado}.
+     */
+    public static void escreverLances(ByteBuffer destino, EstadoPartida estado, int[] lances, int n) {
+        int inicio = abrir(destino, LANCES, 0);
+        destino.putLong(estado.getId())
+                .putShort((short) estado.getLances())
+                .put((byte) estado.getSituacao().ordinal())
+                .put((byte) (estado.isXeque() ? 1 : 0))
+                .putShort((short) n);
+        for (int i = 0; i < n; i++) {
+            destino.putShort((short) lances[i]);
+        }
+        fechar(destino, inicio);
+    }
+
+    /**
+     * Quantos lances cabem num único quadro {@link #LANCES}.
+     */
+    public static int maximoLancesPorLote() {
+        return (TAMANHO_MAXIMO - CABECALHO - 14) / 2;
+    }
+
+    public static void escreverErro(ByteBuffer destino, int pedido, int codigo, String mensagem) {
+        int inicio = abrir(destino, ERRO, pedido);
+        byte[] texto = mensagem.getBytes(StandardCharsets.UTF_8);
+        destino.put((byte) codigo).put(texto, 0, Math.min(texto.length, TAMANHO_MAXIMO - CABECALHO - 1));
+        fechar(destino, inicio);
+    }
+
+    /**
+     * Tamanho do quadro que começa na posição atual, ou -1 se ainda não chegaram os quatro bytes do tamanho.
+     * Não move a posição.
+     */
+    public static int tamanhoQuadro(ByteBuffer origem) {
+        return (origem.remaining() < 4) ? -1 : 4 + origem.getInt(origem.position());
+    }
+
+    public static int tipo(ByteBuffer quadro, int inicio) {
+        return quadro.get(inicio + 4);
+    }
+
+    public static int pedido(ByteBuffer quadro, int inicio) {
+        return quadro.getInt(inicio + 5);
+    }
+
+    /**
+     * Lê os lances de um quadro {@link #LANCES} entre {@code inicio} e {@code fim} (exclusivo).
+     */
+    public static int[] lerLances(ByteBuffer quadro, int inicio, int fim) {
+        int i = inicio + CABECALHO + 12;
+        int[] lances = new int[quadro.getShort(i) & 0xFFFF];
+        for (int j = 0; j < lances.length; j++) {
+            lances[j] = quadro.getShort(i + 2 + 2 * j) & 0xFFFF;
+        }
+        return lances;
+    }
+
+    /**
+     * Lê o conteúdo de uma {@link #RESPOSTA} ou {@link #RESSINCRONIZAR} entre {@code inicio} e {@code fim}
+     * (exclusivo).
+     */
+    public static EstadoPartida lerEstado(ByteBuffer quadro, int inicio, int fim) {
+        int i = inicio + CABECALHO;
+        long id = quadro.getLong(i);
+        int lances = quadro.getShort(i + 8) & 0xFFFF;
+        int ultimoLance = quadro.getShort(i + 10) & 0xFFFF;
+        EstadoPartida.Situacao situacao = EstadoPartida.Situacao.values()[quadro.get(i + 12)];
+        boolean xeque = quadro.get(i + 13) != 0;
+        return new EstadoPartida(id, lerTexto(quadro, i + 14, fim), lances, ultimoLance, xeque, situacao);
+    }
+
+    public static String lerTexto(ByteBuffer quadro, int inicio, int fim) {
+        byte[] bytes = new byte[fim - inicio];
+        quadro.get(inicio, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int abrir(ByteBuffer destino, int tipo, int pedido) {
+        int inicio = destino.position();
+        destino.putInt(0).put((byte) tipo).putInt(pedido);
+        return inicio;
+    }
+
+    private static void fechar(ByteBuffer destino, int inicio) {
+        destino.putInt(inicio, destino.position() - inicio - 4);
+    }
+}
@@ -0,0 +1,198 @@
+package servidor;
+
+import Tabuleiro.Posicao;
+import Tabuleiro.Tabuleiro;
+import persistencia.Diario;
+import persistencia.RegistroPartida;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Todas as partidas vivas do servidor, por id. As partidas compartilham um único executor de threads virtuais.
+ * <p>
+ * Com um {@link Diario}, cada partida criada, cada lance aceito e cada partida encerrada vão para o diário dentro
+ * do ator, antes da resposta ao cliente; {@link #abrir(Path)} reconstrói as partidas ativas a partir dele.
+ * <p>
+ * Partidas paradas há muito tempo (partidas por correspondência, clientes que sumiram) podem ser hibernadas com
+ * {@link #hibernarOciosas(long)}, ou periodicamente com {@link #agendarHibernacao(long)}.
+ */
+public class RegistroPartidas implements AutoCloseable {
+    public static final long OCIO_HIBERNACAO_MS = 10 * 60 * 1000;
+
+    private static final String FEN_INICIAL = Tabuleiro.FEN_POS_INICIAL + " w KQkq - 0 1";
+
+    private final ConcurrentHashMap<Long, Partida> partidas = new ConcurrentHashMap<>();
+    private final AtomicLong proximoId = new AtomicLong(1);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Diario diario; // null = sem diário.
+    private ScheduledExecutorService hibernacao; // Só existe depois de agendarHibernacao.
+
+    public RegistroPartidas() {
+        this(null);
+    }
+
+    public RegistroPartidas(Diario diario) {
+        this.diario = diario;
+    }
+
+    /**
+     * Recupera as partidas ativas do diário no diretório e continua gravando nele. Como a restauração regrava
+     * cada partida no segmento atual, os segmentos anteriores são apagados em seguida: o diário só guarda o
+     * que ainda está em jogo, e a próxima abertura não relê o histórico inteiro do servidor.
+     */
+    public static RegistroPartidas abrir(Path diretorioDiario) throws IOException {
+        Map<Long, RegistroPartida> ativas = Diario.recuperar(diretorioDiario);
+        Diario diario = new Diario(diretorioDiario);
+        RegistroPartidas registro = new RegistroPartidas(diario);
+        registro.restaurar(ativas);
+        diario.sincronizar();
+        diario.apagarSegmentosAnteriores();
+        return registro;
+    }
+
+    /**
+     * Cria uma partida a partir da FEN, ou da posição inicial se {@code fen} for nula ou vazia.
+     *
+     * @throws IllegalArgumentException se a FEN é inválida.
+     */
+    public Partida criar(String fen) {
+        Posicao posicao = new Posicao((fen == null || fen.isBlank()) ? FEN_INICIAL : fen.trim());
+        Partida partida = new Partida(proximoId.getAndIncrement(), posicao, executor);
+        if (diario != null) {
+            diario.registrarInicio(partida.getId(), posicao.toFEN());
+            partida.adicionarOuvinte(this::registrarNoDiario);
+        }
+        partidas.put(partida.getId(), partida);
+        return partida;
+    }
+
+    /**
+     * Recoloca no ar partidas gravadas, com os mesmos ids, refazendo os lances. Uma partida cujo registro não
+     * reproduz (lance ilegal) é deixada de fora. Devolve quantas foram restauradas.
+     * <p>
+     * Com diário, cada partida restaurada é gravada de novo como um INICIO com a posição atual, como em
+     * {@link Diario#abrirPartidaLocal}; a contagem de lances e o histórico de repetições recomeçam nela.
+     */
+    public int restaurar(Map<Long, RegistroPartida> registros) {
+        int restauradas = 0;
+        for (Map.Entry<Long, RegistroPartida> entrada : registros.entrySet()) {
+            long id = entrada.getKey();
+            Posicao posicao;
+            try {
+                posicao = entrada.getValue().reproduzir();
+            } catch (IllegalArgumentException e) {
+                System.out.println("Partida " + id + " não restaurada: " + e.getMessage());
+                continue;
+            }
+            if (diario != null) {
+                // Os meio-lances do diário contam a partir do INICIO, então a posição recomeça nele.
+                posicao = new Posicao(posicao.toFEN());
+                diario.registrarInicio(id, posicao.toFEN());
+            }
+            Partida partida = new Partida(id, posicao, executor);
+            if (diario != null) {
+                partida.adicionarOuvinte(this::registrarNoDiario);
+            }
+            partidas.put(id, partida);
+            proximoId.accumulateAndGet(id + 1, Math::max);
+            restauradas++;
+        }
+        return restauradas;
+    }
+
+    /**
+     * A partida com o id, ou null.
+     */
+    public Partida buscar(long id) {
+        return partidas.get(id);
+    }
+
+    public boolean remover(long id) {
+        if (partidas.remove(id) == null) {
+            return false;
+        }
+        if (diario != null) {
+            diario.registrarFim(id, RegistroPartida.SEM_RESULTADO);
+        }
+        return true;
+    }
+
+    public int quantidade() {
+        return partidas.size();
+    }
+
+    /**
+     * Pede para hibernar toda partida sem pedidos há pelo menos {@code ociosoMs}. Devolve quantas foram pedidas;
+     * cada uma só hiberna quando o seu ator chega no pedido, e desiste se um lance chegou antes.
+     */
+    public int hibernarOciosas(long ociosoMs) {
+        long ociosoNanos = TimeUnit.MILLISECONDS.toNanos(ociosoMs);
+        long agora = System.nanoTime();
+        int pedidas = 0;
+        for (Partida partida : partidas.values()) {
+            if (!partida.isHibernada() && agora - partida.getUltimaAtividade() >= ociosoNanos) {
+                partida.hibernar(ociosoNanos);
+                pedidas++;
+            }
+        }
+        return pedidas;
+    }
+
+    /**
+     * Passa a hibernar as partidas ociosas periodicamente, numa thread própria.
+     */
+    public synchronized void agendarHibernacao(long ociosoMs) {
+        if (hibernacao == null) {
+            hibernacao = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+                Thread thread = new Thread(tarefa, "hibernacao");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        long intervalo = Math.max(1, ociosoMs / 4);
+        hibernacao.scheduleWithFixedDelay(() -> hibernarOciosas(ociosoMs), intervalo, intervalo,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        synchronized (this) {
+            if (hibernacao != null) {
+                hibernacao.shutdown();
+            }
+        }
+        if (diario != null) {
+            try {
+                diario.close();
+            } catch (IOException e) {
+                System.out.println("Erro ao fechar o diário: " + e.getMessage());
+            }
+        }
+    }
+
+    // Roda no ator da partida, logo depois do lance.
+    private void registrarNoDiario(EstadoPartida estado) {
+        diario.registrarLance(estado.getId(), estado.getLances(), estado.getUltimoLance());
+        if (estado.terminou()) {
+            diario.registrarFim(estado.getId(), resultado(estado));
+        }
+    }
+
+    private static int resultado(EstadoPartida estado) {
+        if (estado.getSituacao() != EstadoPartida.Situacao.XEQUE_MATE) {
+            return RegistroPartida.EMPATE;
+        }
+        // Levou mate quem está com a vez.
+        boolean brancasJogam = estado.getFen().split(" ")[1].equals("w");
+        return brancasJogam ? RegistroPartida.VITORIA_PRETAS : RegistroPartida.VITORIA_BRANCAS;
+    }
+}
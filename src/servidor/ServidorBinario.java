@@ -0,0 +1,259 @@
+package servidor;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static servidor.ProtocoloBinario.*;
+
+/**
+ * Servidor do {@link ProtocoloBinario} sobre NIO: uma única thread com um seletor aceita conexões, lê e decodifica
+ * quadros e escreve respostas; o trabalho de cada partida fica com o seu ator.
+ * <p>
+ * Os quadros são decodificados direto do buffer de leitura da conexão, sem cópia, e todos os quadros completos de
+ * uma leitura são despachados de uma vez, o que permite ao cliente mandar vários pedidos sem esperar as respostas.
+ * Buffers de leitura e de resposta vêm de pools. Pedidos {@code OBSERVAR} inscrevem a conexão como espectadora
+ * no {@link Difusor}.
+ *
+ * <pre>
+ * java servidor.ServidorBinario [porta] [diretório do diário]
+ * </pre>
+ */
+public class ServidorBinario implements Runnable {
+    private static final int TAMANHO_LEITURA = 16 * 1024;
+    private static final long INTERVALO_DIFUSAO_MS = 50;
+
+    private final RegistroPartidas registro;
+    private final Difusor difusor;
+    private final Selector seletor;
+    private final ServerSocketChannel aceitador;
+    private final PoolBuffers poolLeitura = new PoolBuffers(TAMANHO_LEITURA, 1024);
+    private final PoolBuffers poolQuadros = new PoolBuffers(TAMANHO_MAXIMO, 8192);
+    private final ConcurrentLinkedQueue<Conexao> escritasPedidas = new ConcurrentLinkedQueue<>();
+
+    private Thread thread;
+    private volatile boolean rodando;
+
+    public ServidorBinario(RegistroPartidas registro, Difusor difusor, int porta) throws IOException {
+        this.registro = registro;
+        this.difusor = difusor;
+        this.seletor = Selector.open();
+        this.aceitador = ServerSocketChannel.open();
+        aceitador.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta), 1024);
+        aceitador.configureBlocking(false);
+        aceitador.register(seletor, SelectionKey.OP_ACCEPT);
+    }
+
+    public void iniciar() {
+        rodando = true;
+        thread = new Thread(this, "servidor-binario");
+        thread.start();
+    }
+
+    public void parar() throws IOException {
+        rodando = false;
+        seletor.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey chave : seletor.keys()) {
+            if (chave.attachment() instanceof Conexao conexao) {
+                fechar(conexao);
+            }
+        }
+        aceitador.close();
+        seletor.close();
+    }
+
+    public int getPorta() throws IOException {
+        return ((InetSocketAddress) aceitador.getLocalAddress()).getPort();
+    }
+
+    @Override
+    public void run() {
+        while (rodando) {
+            try {
+                seletor.select();
+            } catch (IOException e) {
+                System.out.println("Erro no seletor: " + e.getMessage());
+                return;
+            }
+            Conexao pedida;
+            while ((pedida = escritasPedidas.poll()) != null) {
+                if (!pedida.isFechada()) {
+                    pedida.getChave().interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            }
+
+            Iterator<SelectionKey> prontas = seletor.selectedKeys().iterator();
+            while (prontas.hasNext()) {
+                SelectionKey chave = prontas.next();
+                prontas.remove();
+                if (!chave.isValid()) {
+                    continue;
+                }
+                if (chave.isAcceptable()) {
+                    aceitar();
+                    continue;
+                }
+                Conexao conexao = (Conexao) chave.attachment();
+                try {
+                    if (chave.isReadable()) {
+                        ler(conexao);
+                    }
+                    if (chave.isValid() && chave.isWritable() && conexao.escrever()) {
+                        chave.interestOps(SelectionKey.OP_READ);
+                    }
+                } catch (IOException e) {
+                    fechar(conexao);
+                } catch (RuntimeException e) { // Uma falha num pedido derruba só essa conexão, não o seletor.
+                    System.out.println("Erro ao tratar pedido: " + e);
+                    fechar(conexao);
+                }
+            }
+        }
+    }
+
+    /**
+     * Chamado por {@link Conexao#enviar} (de qualquer thread) quando a conexão passa a ter o que escrever.
+     */
+    void pedirEscrita(Conexao conexao) {
+        escritasPedidas.add(conexao);
+        seletor.wakeup();
+    }
+
+    private void aceitar() {
+        try {
+            SocketChannel canal;
+            while ((canal = aceitador.accept()) != null) {
+                canal.configureBlocking(false);
+                canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                SelectionKey chave = canal.register(seletor, SelectionKey.OP_READ);
+                chave.attach(new Conexao(canal, chave, this, poolLeitura.obter(), poolQuadros));
+            }
+        } catch (IOException e) {
+            System.out.println("Erro ao aceitar conexão: " + e.getMessage());
+        }
+    }
+
+    private void ler(Conexao conexao) throws IOException {
+        ByteBuffer buffer = conexao.leitura;
+        if (conexao.getCanal().read(buffer) < 0) {
+            fechar(conexao);
+            return;
+        }
+        buffer.flip();
+        int tamanho;
+        while ((tamanho = tamanhoQuadro(buffer)) >= 0) {
+            if (tamanho < CABECALHO || tamanho > TAMANHO_MAXIMO) {
+                fechar(conexao); // Quadro corrompido: não há como ressincronizar.
+                return;
+            }
+            if (buffer.remaining() < tamanho) {
+                break;
+            }
+            int inicio = buffer.position();
+            despachar(conexao, buffer, inicio, inicio + tamanho);
+            buffer.position(inicio + tamanho);
+        }
+        buffer.compact();
+    }
+
+    private void despachar(Conexao conexao, ByteBuffer buffer, int inicio, int fim) {
+        int tipo = ProtocoloBinario.tipo(buffer, inicio);
+        int pedido = ProtocoloBinario.pedido(buffer, inicio);
+        int conteudo = inicio + CABECALHO;
+
+        if (tipo == CRIAR) {
+            try {
+                Partida nova = registro.criar(lerTexto(buffer, conteudo, fim));
+                nova.consultar().whenComplete((estado, falha) -> responder(conexao, pedido, estado, falha));
+            } catch (IllegalArgumentException e) {
+                erro(conexao, pedido, ERRO_PEDIDO_INVALIDO, e.getMessage());
+            }
+            return;
+        }
+        if (fim - conteudo < 8) {
+            erro(conexao, pedido, ERRO_PEDIDO_INVALIDO, "Pedido sem id de partida.");
+            return;
+        }
+        long id = buffer.getLong(conteudo);
+        Partida partida = registro.buscar(id);
+        if (partida == null) {
+            erro(conexao, pedido, ERRO_PARTIDA_NAO_ENCONTRADA, "Partida não encontrada: " + id);
+            return;
+        }
+        switch (tipo) {
+            case LANCE -> {
+                if (fim - conteudo < 10) {
+                    erro(conexao, pedido, ERRO_PEDIDO_INVALIDO, "Pedido sem lance.");
+                    return;
+                }
+                int lance = buffer.getShort(conteudo + 8) & 0xFFFF;
+                partida.jogar(lance).whenComplete((estado, falha) -> responder(conexao, pedido, estado, falha));
+            }
+            case ESTADO -> partida.consultar()
+                    .whenComplete((estado, falha) -> responder(conexao, pedido, estado, falha));
+            case OBSERVAR -> {
+                // A resposta confirma a inscrição; o estado chega a seguir num RESSINCRONIZAR. Um segundo OBSERVAR
+                // da mesma partida só é respondido, para o espectador não receber cada quadro duas vezes.
+                if (conexao.assistir(partida)) {
+                    difusor.assistir(partida, conexao);
+                }
+                partida.consultar().whenComplete((estado, falha) -> responder(conexao, pedido, estado, falha));
+            }
+            default -> erro(conexao, pedido, ERRO_PEDIDO_INVALIDO, "Tipo de quadro desconhecido: " + tipo);
+        }
+    }
+
+    private void responder(Conexao conexao, int pedido, EstadoPartida estado, Throwable falha) {
+        if (falha == null) {
+            ByteBuffer quadro = poolQuadros.obter();
+            escreverEstado(quadro, RESPOSTA, pedido, estado);
+            conexao.enviar(quadro);
+        } else if (falha instanceof IllegalArgumentException) {
+            erro(conexao, pedido, ERRO_LANCE_ILEGAL, falha.getMessage());
+        } else {
+            erro(conexao, pedido, ERRO_PARTIDA_TERMINADA, falha.getMessage());
+        }
+    }
+
+    private void erro(Conexao conexao, int pedido, int codigo, String mensagem) {
+        ByteBuffer quadro = poolQuadros.obter();
+        escreverErro(quadro, pedido, codigo, mensagem);
+        conexao.enviar(quadro);
+    }
+
+    private void fechar(Conexao conexao) {
+        if (conexao.isFechada()) {
+            return;
+        }
+        conexao.fechar();
+        for (Partida partida : conexao.getAssistidas()) {
+            difusor.deixar(partida, conexao);
+        }
+        poolLeitura.devolver(conexao.leitura);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int porta = (args.length > 0) ? Integer.parseInt(args[0]) : 8081;
+        Difusor difusor = new Difusor(INTERVALO_DIFUSAO_MS);
+        RegistroPartidas registro = (args.length > 1) ? RegistroPartidas.abrir(Path.of(args[1]))
+                : new RegistroPartidas();
+        registro.agendarHibernacao(RegistroPartidas.OCIO_HIBERNACAO_MS);
+        ServidorBinario servidor = new ServidorBinario(registro, difusor, porta);
+        servidor.iniciar();
+        System.out.println("Servidor binário de partidas em 127.0.0.1:" + servidor.getPorta());
+    }
+}
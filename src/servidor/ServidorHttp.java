@@ -0,0 +1,152 @@
+package servidor;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Front end HTTP/JSON do servidor de partidas, escutando só em localhost. Cada requisição roda numa thread
+ * virtual e espera a resposta do ator da partida.
+ *
+ * <pre>
+ * POST   /partidas              corpo opcional: FEN      cria uma partida
+ * GET    /partidas                                       quantidade de partidas
+ * GET    /partidas/{id}                                  estado da partida
+ * POST   /partidas/{id}/lances  corpo: lance UCI ou SAN  joga um lance
+ * DELETE /partidas/{id}                                  encerra a partida
+ *
+ * java servidor.ServidorHttp [porta] [diretório do diário]
+ * </pre>
+ */
+public class ServidorHttp {
+    private static final String RAIZ = "/partidas";
+
+    private final RegistroPartidas registro;
+    private final HttpServer servidor;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ServidorHttp(RegistroPartidas registro, int porta) throws IOException {
+        this.registro = registro;
+        this.servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta), 1024);
+        servidor.createContext(RAIZ, this::tratar);
+        servidor.setExecutor(executor);
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    public void parar() {
+        servidor.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    private void tratar(HttpExchange troca) throws IOException {
+        try (troca) {
+            String metodo = troca.getRequestMethod();
+            String[] partes = troca.getRequestURI().getPath().substring(RAIZ.length()).split("/");
+            // partes[0] é vazio; partes[1] o id; partes[2] a sub-rota.
+            try {
+                if (partes.length <= 1) {
+                    switch (metodo) {
+                        case "POST" -> {
+                            Partida partida = registro.criar(lerCorpo(troca));
+                            responder(troca, 201, partida.consultar().join().toJSON());
+                        }
+                        case "GET" -> responder(troca, 200, "{\"partidas\":" + registro.quantidade() + "}");
+                        default -> erro(troca, 405, "Método não suportado: " + metodo);
+                    }
+                    return;
+                }
+
+                long id = Long.parseLong(partes[1]);
+                Partida partida = registro.buscar(id);
+                if (partida == null) {
+                    erro(troca, 404, "Partida não encontrada: " + id);
+                    return;
+                }
+                if (partes.length == 2 && metodo.equals("GET")) {
+                    responder(troca, 200, partida.consultar().join().toJSON());
+                } else if (partes.length == 2 && metodo.equals("DELETE")) {
+                    registro.remover(id);
+                    troca.sendResponseHeaders(204, -1);
+                } else if (partes.length == 3 && partes[2].equals("lances") && metodo.equals("POST")) {
+                    responder(troca, 200, partida.jogar(lerCorpo(troca).trim()).join().toJSON());
+                } else {
+                    erro(troca, 404, "Rota desconhecida: " + troca.getRequestURI().getPath());
+                }
+            } catch (CompletionException e) {
+                // Lance ilegal é erro do pedido; partida encerrada é conflito com o estado.
+                erro(troca, (e.getCause() instanceof IllegalArgumentException) ? 400 : 409, e.getCause().getMessage());
+            } catch (IllegalArgumentException e) { // Inclui NumberFormatException de ids inválidos.
+                erro(troca, 400, e.getMessage());
+            } catch (RuntimeException e) { // Falha do servidor: o cliente recebe a resposta em vez da conexão caída.
+                erro(troca, 500, "Erro interno: " + e);
+            }
+        }
+    }
+
+    private static String lerCorpo(HttpExchange troca) throws IOException {
+        return new String(troca.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static void erro(HttpExchange troca, int codigo, String mensagem) throws IOException {
+        responder(troca, codigo, "{\"erro\":" + textoJSON(String.valueOf(mensagem)) + "}");
+    }
+
+    // A mensagem pode repetir texto do pedido (uma FEN inválida, por exemplo), então tudo que o JSON não aceita
+    // cru sai escapado.
+    private static String textoJSON(String texto) {
+        StringBuilder json = new StringBuilder(texto.length() + 2).append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    private static void responder(HttpExchange troca, int codigo, String json) throws IOException {
+        byte[] corpo = json.getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        troca.sendResponseHeaders(codigo, corpo.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(corpo);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int porta = (args.length > 0) ? Integer.parseInt(args[0]) : 8080;
+        RegistroPartidas registro = (args.length > 1) ? RegistroPartidas.abrir(Path.of(args[1]))
+                : new RegistroPartidas();
+        registro.agendarHibernacao(RegistroPartidas.OCIO_HIBERNACAO_MS);
+        ServidorHttp servidor = new ServidorHttp(registro, porta);
+        servidor.iniciar();
+        System.out.println("Servidor de partidas em http://127.0.0.1:" + servidor.getPorta() + RAIZ);
+    }
+}
@@ -0,0 +1,137 @@
+package servidor;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static servidor.ProtocoloBinario.*;
+
+/**
+ * Transmite os lances de uma partida para os seus espectadores.
+ * <p>
+ * Os lances se acumulam entre descargas; a cada intervalo do {@link Difusor} o lote é codificado uma única vez num
+ * quadro {@code LANCES} compartilhado por todos. Quem tem a fila cheia perde o lote e passa para o conjunto de
+ * ressincronização: na próxima descarga em que houver espaço recebe um {@code RESSINCRONIZAR} com a FEN atual, que
+ * também é o primeiro quadro de quem acabou de entrar.
+ */
+public class Transmissao implements OuvintePartida {
+    private final Partida partida;
+    private final Difusor difusor;
+    private final CopyOnWriteArrayList<Espectador> espectadores = new CopyOnWriteArrayList<>();
+    private final Set<Espectador> ressincronizar = ConcurrentHashMap.newKeySet();
+
+    // Lote pendente, protegido por this: preenchido pelo ator da partida, esvaziado pelo difusor.
+    private int[] pendentes = new int[16];
+    private int quantidadePendentes;
+    private EstadoPartida ultimoEstado;
+    private boolean agendada;
+
+    // Só usados pela thread do difusor.
+    private int[] lote = new int[16];
+
+    Transmissao(Partida partida, Difusor difusor) {
+        this.partida = partida;
+        this.difusor = difusor;
+    }
+
+    public Partida getPartida() {
+        return partida;
+    }
+
+    public int quantidadeEspectadores() {
+        return espectadores.size();
+    }
+
+    void adicionar(Espectador espectador) {
+        if (!espectadores.addIfAbsent(espectador)) {
+            return;
+        }
+        ressincronizar.add(espectador);
+        partida.consultar().thenAccept(estado -> {
+            synchronized (this) {
+                if (ultimoEstado == null) {
+                    ultimoEstado = estado;
+                }
+            }
+            agendar();
+        });
+    }
+
+    boolean remover(Espectador espectador) {
+        espectadores.remove(espectador);
+        ressincronizar.remove(espectador);
+        return espectadores.isEmpty();
+    }
+
+    @Override
+    public void lanceJogado(EstadoPartida estado) {
+        synchronized (this) {
+            if (quantidadePendentes == pendentes.length) {
+                pendentes = Arrays.copyOf(pendentes, quantidadePendentes * 2);
+            }
+            pendentes[quantidadePendentes++] = estado.getUltimoLance();
+            ultimoEstado = estado;
+        }
+        agendar();
+    }
+
+    private void agendar() {
+        synchronized (this) {
+            if (agendada) {
+                return;
+            }
+            agendada = true;
+        }
+        difusor.agendar(this);
+    }
+
+    /**
+     * Codifica o lote pendente e o entrega aos espectadores. Chamado pelo difusor.
+     */
+    void descarregar() {
+        EstadoPartida estado;
+        int n;
+        synchronized (this) {
+            agendada = false;
+            estado = ultimoEstado;
+            n = quantidadePendentes;
+            if (lote.length < n) {
+                lote = new int[pendentes.length];
+            }
+            System.arraycopy(pendentes, 0, lote, 0, n);
+            quantidadePendentes = 0;
+        }
+        if (estado == null) {
+            return;
+        }
+
+        if (n > 0) {
+            if (n > maximoLancesPorLote()) {
+                // Lote grande demais para um quadro: todos recomeçam da FEN.
+                ressincronizar.addAll(espectadores);
+            } else {
+                ByteBuffer quadro = ByteBuffer.allocate(CABECALHO + 14 + 2 * n);
+                escreverLances(quadro, estado, lote, n);
+                quadro.flip();
+                for (Espectador espectador : espectadores) {
+                    if (!ressincronizar.contains(espectador) && !espectador.oferecer(quadro)) {
+                        ressincronizar.add(espectador);
+                    }
+                }
+            }
+        }
+
+        if (!ressincronizar.isEmpty()) {
+            ByteBuffer quadro = ByteBuffer.allocate(CABECALHO + 14 + estado.getFen().length());
+            escreverEstado(quadro, RESSINCRONIZAR, 0, estado);
+            quadro.flip();
+            // Quem continua sem espaço tenta de novo na próxima descarga.
+            ressincronizar.removeIf(espectador -> espectador.oferecer(quadro));
+            if (!ressincronizar.isEmpty()) {
+                agendar();
+            }
+        }
+    }
+}